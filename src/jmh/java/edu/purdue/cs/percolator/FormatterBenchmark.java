@@ -0,0 +1,102 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.Grader;
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the grading results of a large test suite with the
+ * {@link GradescopeFormatter} and the {@link VocareumFormatter}. The output is thrown away,
+ * so only the formatting is measured.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+
+    /**
+     * The number of test results to render.
+     */
+    @Param({"100", "10000"})
+    public int tests;
+
+    /**
+     * The grading results.
+     */
+    private Grader grader;
+
+    /**
+     * The stream the results are rendered to.
+     */
+    private PrintStream out;
+
+    /**
+     * Creates grading results where every fourth test failed with a message.
+     */
+    @Setup
+    public void createResults() {
+        this.grader = new Grader();
+        this.grader.setMaxScore(100);
+        this.grader.setScore(75);
+        for (int i = 0; i < this.tests; i++) {
+            GradedTestResult result = new GradedTestResult("Test \"" + i + "\"", Integer.toString(i),
+                100.0 / this.tests, GradedTestResult.VISIBLE);
+            if (i % 4 == 0) {
+                result.setScore(0);
+                result.addOutput("expected:<" + i + "> but was:<" + (i + 1) + ">\n\tat Test.test" + i + "\n");
+            } else {
+                result.setScore(100.0 / this.tests);
+                result.setPassed(true);
+            }
+            this.grader.addGradedTestResult(result);
+        }
+        this.out = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Renders the results as indented Gradescope JSON.
+     */
+    @Benchmark
+    public void gradescope() {
+        new GradescopeFormatter().printGradingResults(this.grader, this.out, this.out);
+    }
+
+    /**
+     * Renders the results as compact Gradescope JSON.
+     */
+    @Benchmark
+    public void gradescopeCompact() {
+        new GradescopeFormatter(true).printGradingResults(this.grader, this.out, this.out);
+    }
+
+    /**
+     * Renders the results as a Vocareum report.
+     */
+    @Benchmark
+    public void vocareum() {
+        new VocareumFormatter().printGradingResults(this.grader, this.out, this.out);
+    }
+
+}
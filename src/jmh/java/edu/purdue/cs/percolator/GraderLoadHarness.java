@@ -0,0 +1,429 @@
+package edu.purdue.cs.percolator;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The {@link GraderLoadHarness} class measures how many submissions an {@link AutoGrader} can
+ * grade, end to end, in a single JVM. It generates a sample {@link TestCase} suite and
+ * a number of synthetic student submissions, grades them one after another in the same way as
+ * {@link AutoGrader#runBatch}, and reports the throughput in submissions per minute, the 50th
+ * and 99th percentile latency per submission, and the peak resident set size of the JVM.
+ * <p>
+ * The submissions cycle through every {@link Kind} in order, so the same arguments always
+ * produce the same load. Every submission is also audited by a {@link StyleChecker}, and the
+ * test cases have a time limit of one second, as they would in a real assignment.
+ * <p>
+ * Takes up to three command line arguments: 1. the number of submissions to measure
+ * (default 100), 2. the number of submissions to grade first as a warm-up (default 10),
+ * and 3. a file to write the results to as JSON (by default, they are only printed).
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public final class GraderLoadHarness {
+
+    /**
+     * The time limit for each test case in milliseconds.
+     */
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    /**
+     * The {@link Kind} enum defines the kinds of synthetic submissions.
+     */
+    enum Kind {
+
+        /**
+         * A submission that passes every test case.
+         */
+        CORRECT,
+
+        /**
+         * A submission that fails some of the test cases.
+         */
+        FAILING,
+
+        /**
+         * A submission that loops far past the time limit, ignoring interrupts.
+         * The loop does end after a few seconds, so that abandoned test threads
+         * do not pile up over a long run and skew the later measurements.
+         */
+        INFINITE_LOOP,
+
+        /**
+         * A submission that passes every test case, but prints megabytes of output.
+         */
+        OUTPUT_SPAM,
+
+        /**
+         * A submission that passes every test case, but has many code style violations.
+         */
+        STYLE_VIOLATING
+
+    }
+
+    /**
+     * The style policy used for every submission.
+     */
+    private static final String POLICY = "<?xml version=\"1.0\"?>\n" +
+        "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"\n" +
+        "    \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n" +
+        "<module name=\"Checker\">\n" +
+        "  <module name=\"FileTabCharacter\"/>\n" +
+        "  <module name=\"LineLength\"/>\n" +
+        "  <module name=\"TreeWalker\">\n" +
+        "    <module name=\"ConstantName\"/>\n" +
+        "    <module name=\"MethodName\"/>\n" +
+        "    <module name=\"NeedBraces\"/>\n" +
+        "    <module name=\"WhitespaceAround\"/>\n" +
+        "  </module>\n" +
+        "</module>\n";
+
+    /**
+     * The test suite every submission is graded with.
+     */
+    private static final String TEST_SUITE = "import edu.purdue.cs.percolator.TestCase;\n" +
+        "import org.junit.Assert;\n" +
+        "import org.junit.Test;\n" +
+        "import java.util.Arrays;\n" +
+        "import java.util.Random;\n" +
+        "\n" +
+        "public class SolutionTest {\n" +
+        "\n" +
+        "    @Test\n" +
+        "    @TestCase(name = \"Sorts 10,000 numbers\", points = 40)\n" +
+        "    public void sort() {\n" +
+        "        int[] values = new Random(42).ints(10000).toArray();\n" +
+        "        int[] expected = values.clone();\n" +
+        "        Arrays.sort(expected);\n" +
+        "        Assert.assertArrayEquals(expected, Solution.sort(values));\n" +
+        "    }\n" +
+        "\n" +
+        "    @Test\n" +
+        "    @TestCase(name = \"Sums an array\", points = 20)\n" +
+        "    public void sum() {\n" +
+        "        Assert.assertEquals(5050, Solution.sum(java.util.stream.IntStream.rangeClosed(1, 100).toArray()));\n" +
+        "    }\n" +
+        "\n" +
+        "    @Test\n" +
+        "    @TestCase(name = \"Greets by name\", points = 20)\n" +
+        "    public void greet() {\n" +
+        "        Assert.assertEquals(\"Hello, Ada!\", Solution.greet(\"Ada\"));\n" +
+        "    }\n" +
+        "\n" +
+        "    @Test\n" +
+        "    @TestCase(name = \"Reports progress\", points = 20)\n" +
+        "    public void report() {\n" +
+        "        Assert.assertEquals(\"done: 1000\", Solution.report(1000));\n" +
+        "    }\n" +
+        "\n" +
+        "}\n";
+
+    /**
+     * Private default constructor so no objects can be created of this type.
+     */
+    private GraderLoadHarness() {
+    }
+
+    /**
+     * Generates the submissions, grades them and reports the results.
+     *
+     * @param args the number of submissions, the number of warm-up submissions
+     *             and the file to write the results to, all optional
+     * @throws IOException            if the submissions cannot be generated or the results cannot be written
+     * @throws ClassNotFoundException if the generated test suite cannot be loaded
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int submissions = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        if (submissions < 1 || warmup < 0) {
+            throw new IllegalArgumentException("GraderLoadHarness takes up to three arguments: " +
+                "(submissions, warmup_submissions, result_file), with at least one submission.");
+        }
+
+        Path root = Files.createTempDirectory("percolator-load");
+        try {
+            Path policy = Files.writeString(root.resolve("checkstyle.xml"), POLICY);
+            Class<?> testSuite = compileTestSuite(root);
+            Kind[] kinds = Kind.values();
+            List<File> directories = new ArrayList<>();
+            for (int i = 0; i < warmup + submissions; i++) {
+                directories.add(createSubmission(root.resolve("submission" + i), kinds[i % kinds.length]));
+            }
+
+            AutoGrader grader = AutoGrader.grade(new Class<?>[]{testSuite})
+                .withTimeout(TIMEOUT_MILLIS)
+                .withStyleChecker(StyleChecker.lint(root.toString(), policy.toString()));
+            PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+            for (int i = 0; i < warmup; i++) {
+                grader.gradeSubmission(directories.get(i), discard, discard);
+            }
+
+            long[] latencies = new long[submissions];
+            Map<Kind, List<Long>> latenciesByKind = new EnumMap<>(Kind.class);
+            long start = System.nanoTime();
+            for (int i = 0; i < submissions; i++) {
+                long submissionStart = System.nanoTime();
+                grader.gradeSubmission(directories.get(warmup + i), discard, discard);
+                latencies[i] = System.nanoTime() - submissionStart;
+                latenciesByKind.computeIfAbsent(kinds[(warmup + i) % kinds.length], k -> new ArrayList<>())
+                    .add(latencies[i]);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            writeResults(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), submissions, elapsed,
+                latencies, latenciesByKind);
+            if (args.length > 2) {
+                try (Writer writer = Files.newBufferedWriter(Paths.get(args[2]))) {
+                    writeResults(writer, submissions, elapsed, latencies, latenciesByKind);
+                }
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    /**
+     * Writes the results of a run as JSON.
+     *
+     * @param writer          the writer to write the results to
+     * @param submissions     the number of submissions that were measured
+     * @param elapsedNanos    the time taken to grade all of the submissions, in nanoseconds
+     * @param latencies       the time taken to grade each submission, in nanoseconds
+     * @param latenciesByKind the time taken to grade each submission, grouped by kind
+     * @throws IOException if the results cannot be written
+     */
+    private static void writeResults(Writer writer, int submissions, long elapsedNanos, long[] latencies,
+                                     Map<Kind, List<Long>> latenciesByKind) throws IOException {
+        JsonWriter json = new JsonWriter(writer, 2);
+        json.beginObject()
+            .name("submissions").value(submissions)
+            .name("submissions_per_minute").value(submissions * 60e9 / elapsedNanos)
+            .name("p50_latency_ms").value(percentile(latencies, 50) / 1e6)
+            .name("p99_latency_ms").value(percentile(latencies, 99) / 1e6)
+            .name("peak_rss_bytes").value(peakResidentSetSize());
+
+        json.name("p50_latency_ms_by_kind").beginObject();
+        for (Map.Entry<Kind, List<Long>> entry : latenciesByKind.entrySet()) {
+            long[] kindLatencies = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+            json.name(entry.getKey().name().toLowerCase()).value(percentile(kindLatencies, 50) / 1e6);
+        }
+        json.endObject();
+        json.endObject();
+
+        writer.write(System.lineSeparator());
+        writer.flush();
+    }
+
+    /**
+     * Returns a percentile of a set of measurements, using the nearest rank.
+     *
+     * @param values     the measurements
+     * @param percentile the percentile, between 0 and 100
+     * @return the measurement at the percentile
+     */
+    private static long percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Returns the peak resident set size of the JVM, as reported by the operating system.
+     * This is only available on Linux.
+     *
+     * @return the peak resident set size in bytes, or -1 if it is not available
+     */
+    private static long peakResidentSetSize() {
+        try (Stream<String> lines = Files.lines(Paths.get("/proc/self/status"))) {
+            return lines.filter(line -> line.startsWith("VmHWM:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024)
+                .findFirst()
+                .orElse(-1);
+        } catch (IOException | UncheckedIOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Compiles the test suite against a reference solution, and loads it. The reference
+     * solution is not on the class path of the loaded test suite, so the test suite can
+     * only be run against a submission.
+     *
+     * @param root the directory to compile the test suite in
+     * @return the test suite class
+     * @throws IOException            if the test suite cannot be compiled
+     * @throws ClassNotFoundException if the compiled test suite cannot be loaded
+     */
+    private static Class<?> compileTestSuite(Path root) throws IOException, ClassNotFoundException {
+        Path reference = createSubmission(root.resolve("reference"), Kind.CORRECT).toPath();
+        Path suite = Files.createDirectory(root.resolve("suite"));
+        compile(suite, reference + File.pathSeparator + System.getProperty("java.class.path"),
+            Files.writeString(suite.resolve("SolutionTest.java"), TEST_SUITE));
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{suite.toUri().toURL()},
+            GraderLoadHarness.class.getClassLoader());
+        return loader.loadClass("SolutionTest");
+    }
+
+    /**
+     * Creates and compiles a synthetic submission.
+     *
+     * @param directory the directory to create the submission in
+     * @param kind      the kind of submission
+     * @return the submission directory
+     * @throws IOException if the submission cannot be created or compiled
+     */
+    private static File createSubmission(Path directory, Kind kind) throws IOException {
+        Files.createDirectories(directory);
+        Path source = Files.writeString(directory.resolve("Solution.java"), createSource(kind));
+        compile(directory, "", source);
+        return directory.toFile();
+    }
+
+    /**
+     * Compiles source files with the system Java compiler.
+     *
+     * @param output    the directory to write the classes to
+     * @param classPath the class path to compile against
+     * @param sources   the source files to compile
+     * @throws IOException if the source files do not compile
+     */
+    private static void compile(Path output, String classPath, Path... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("GraderLoadHarness must be run on a JDK, not a JRE.");
+        }
+
+        // Classes that are only referenced are not written, so the reference solution stays out of the test suite
+        List<String> arguments = new ArrayList<>(Arrays.asList("-d", output.toString(), "-cp", classPath,
+            "-implicit:none"));
+        for (Path source : sources) {
+            arguments.add(source.toString());
+        }
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IOException("Could not compile " + Arrays.toString(sources) + ".");
+        }
+    }
+
+    /**
+     * Creates the source of a synthetic submission.
+     *
+     * @param kind the kind of submission
+     * @return the source of the {@code Solution} class
+     */
+    private static String createSource(Kind kind) {
+        switch (kind) {
+            case FAILING:
+                return "public class Solution {\n\n" +
+                    "    public static int[] sort(int[] values) {\n" +
+                    "        return values;\n" +
+                    "    }\n\n" +
+                    "    public static int sum(int[] values) {\n" +
+                    "        int sum = 0;\n" +
+                    "        for (int i = 1; i < values.length; i++) {\n" +
+                    "            sum += values[i];\n" +
+                    "        }\n" +
+                    "        return sum;\n" +
+                    "    }\n\n" +
+                    "    public static String greet(String name) {\n" +
+                    "        return \"Hello \" + name;\n" +
+                    "    }\n\n" +
+                    "    public static String report(int steps) {\n" +
+                    "        return \"done: \" + steps;\n" +
+                    "    }\n\n" +
+                    "}\n";
+            case INFINITE_LOOP:
+                return correctSource("        long end = System.nanoTime() + 3_000_000_000L;\n" +
+                    "        while (System.nanoTime() < end) {\n" +
+                    "        }\n", "");
+            case OUTPUT_SPAM:
+                return correctSource("", "        for (int i = 0; i < steps * 100; i++) {\n" +
+                    "            System.out.println(\"step \" + i + \" of \" + steps * 100 + \": still working\");\n" +
+                    "        }\n");
+            case STYLE_VIOLATING:
+                return "public class Solution {\n" +
+                    "\tstatic final String greeting = \"Hello, \";\n" +
+                    "\tpublic static int[] Sort(int[] values) { java.util.Arrays.sort(values); return values; }\n" +
+                    "\tpublic static int[] sort(int[] values) { return Sort(values); }\n" +
+                    "\tpublic static int sum(int[] values) { int sum=0; for (int v : values) sum+=v; return sum; }\n" +
+                    "\tpublic static String greet(String name) { if (name == null) return null; return greeting+name+\"!\"; }\n" +
+                    "\tpublic static String report(int steps) { return \"done: \"+steps; }\n" +
+                    "}\n";
+            default:
+                return correctSource("", "");
+        }
+    }
+
+    /**
+     * Creates the source of a correct solution, with extra statements
+     * at the start of two of its methods.
+     *
+     * @param sortPrefix   the statements at the start of the sort method
+     * @param reportPrefix the statements at the start of the report method
+     * @return the source of the {@code Solution} class
+     */
+    private static String correctSource(String sortPrefix, String reportPrefix) {
+        return "public class Solution {\n\n" +
+            "    private static final String GREETING = \"Hello, \";\n\n" +
+            "    public static int[] sort(int[] values) {\n" +
+            sortPrefix +
+            "        int[] sorted = values.clone();\n" +
+            "        java.util.Arrays.sort(sorted);\n" +
+            "        return sorted;\n" +
+            "    }\n\n" +
+            "    public static int sum(int[] values) {\n" +
+            "        int sum = 0;\n" +
+            "        for (int value : values) {\n" +
+            "            sum += value;\n" +
+            "        }\n" +
+            "        return sum;\n" +
+            "    }\n\n" +
+            "    public static String greet(String name) {\n" +
+            "        return GREETING + name + \"!\";\n" +
+            "    }\n\n" +
+            "    public static String report(int steps) {\n" +
+            reportPrefix +
+            "        return \"done: \" + steps;\n" +
+            "    }\n\n" +
+            "}\n";
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     *
+     * @param directory the directory to delete
+     * @throws IOException if the directory cannot be deleted
+     */
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link StyleChecker#grade()} on a synthetic submission of 500 source files, about a
+ * third of which have style violations. Checking is measured with and without parallelism, and
+ * with a warm {@link StyleCache}, which is the case for a resubmission that changes few files.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StyleCheckerBenchmark {
+
+    /**
+     * The number of source files in the submission.
+     */
+    private static final int FILES = 500;
+
+    /**
+     * The style policy used for the submission.
+     */
+    private static final String POLICY = "<?xml version=\"1.0\"?>\n" +
+        "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"\n" +
+        "    \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n" +
+        "<module name=\"Checker\">\n" +
+        "  <module name=\"FileTabCharacter\"/>\n" +
+        "  <module name=\"LineLength\"/>\n" +
+        "  <module name=\"TreeWalker\">\n" +
+        "    <module name=\"ConstantName\"/>\n" +
+        "    <module name=\"MethodName\"/>\n" +
+        "    <module name=\"NeedBraces\"/>\n" +
+        "    <module name=\"WhitespaceAround\"/>\n" +
+        "  </module>\n" +
+        "</module>\n";
+
+    /**
+     * The number of threads to check the files with.
+     */
+    @Param({"1", "4"})
+    public int parallelism;
+
+    /**
+     * Whether the results are read from a warm cache.
+     */
+    @Param({"false", "true"})
+    public boolean cached;
+
+    /**
+     * The temporary directory holding the submission, policy and cache.
+     */
+    private Path root;
+
+    /**
+     * The style checker for the submission.
+     */
+    private StyleChecker checker;
+
+    /**
+     * Creates the submission and policy, and fills the cache if it is used.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Setup(Level.Trial)
+    public void createSubmission() throws IOException {
+        this.root = Files.createTempDirectory("percolator-style-benchmark");
+        Path source = Files.createDirectory(this.root.resolve("src"));
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(source.resolve("Source" + i + ".java"), createSource(i));
+        }
+        Path policy = Files.writeString(this.root.resolve("checkstyle.xml"), POLICY);
+
+        this.checker = StyleChecker.lint(source.toString(), policy.toString())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withParallelism(this.parallelism);
+        if (this.cached) {
+            this.checker.withCache(this.root.resolve("cache").toString());
+            this.checker.grade();
+        }
+    }
+
+    /**
+     * Deletes the temporary directory.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void deleteSubmission() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Checks the style of the submission.
+     *
+     * @return the style test result
+     */
+    @Benchmark
+    public GradedTestResult grade() {
+        return this.checker.grade();
+    }
+
+    /**
+     * Creates the contents of a source file. Every third file has a few style violations.
+     *
+     * @param i the number of the file
+     * @return the contents of the file
+     */
+    private static String createSource(int i) {
+        StringBuilder source = new StringBuilder();
+        source.append("public class Source").append(i).append(" {\n\n");
+        source.append("    static final int LIMIT = ").append(i).append(";\n\n");
+        for (int m = 0; m < 20; m++) {
+            if (i % 3 == 0 && m % 5 == 0) {
+                source.append("\tint Method").append(m).append("(int x) { if (x>LIMIT) return x; return -x; }\n\n");
+            } else {
+                source.append("    int method").append(m).append("(int x) {\n")
+                    .append("        if (x > LIMIT) {\n")
+                    .append("            return x * ").append(m).append(";\n")
+                    .append("        }\n")
+                    .append("        return -x;\n")
+                    .append("    }\n\n");
+            }
+        }
+        return source.append("}\n").toString();
+    }
+
+}
@@ -0,0 +1,103 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bookkeeping a {@link TestCaseListener} does around each test: reading the
+ * {@link TestCase} annotation, capturing standard output, recording the result, and finally
+ * scaling and ordering all of the results. The tests themselves do nothing but print a line,
+ * so only the overhead of the listener is measured.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestCaseListenerBenchmark {
+
+    /**
+     * The number of tests in the test plan.
+     */
+    @Param({"100", "10000"})
+    public int tests;
+
+    /**
+     * The test plan.
+     */
+    private Description suite;
+
+    /**
+     * The tests in the test plan.
+     */
+    private Description[] descriptions;
+
+    /**
+     * Creates a test plan of tests that all have a {@link TestCase} annotation.
+     *
+     * @throws NoSuchMethodException if the annotated method cannot be found
+     */
+    @Setup
+    public void createTestPlan() throws NoSuchMethodException {
+        TestCase testCase = TestCaseListenerBenchmark.class.getDeclaredMethod("annotated")
+            .getAnnotation(TestCase.class);
+
+        this.suite = Description.createSuiteDescription(TestCaseListenerBenchmark.class);
+        this.descriptions = new Description[this.tests];
+        for (int i = 0; i < this.tests; i++) {
+            this.descriptions[i] = Description.createTestDescription(TestCaseListenerBenchmark.class,
+                "test" + i, testCase);
+            this.suite.addChild(this.descriptions[i]);
+        }
+    }
+
+    /**
+     * Runs every test in the test plan through a listener and collects the scaled results.
+     *
+     * @return the test results
+     */
+    @Benchmark
+    public List<GradedTestResult> captureAndScale() {
+        TestCaseListener listener = new TestCaseListener(100);
+        listener.testRunStarted(this.suite);
+        try {
+            for (Description description : this.descriptions) {
+                listener.testStarted(description);
+                System.out.println(description.getMethodName());
+                listener.testFinished(description);
+            }
+        } finally {
+            listener.testRunFinished(new Result());
+        }
+        return listener.getTestResults();
+    }
+
+    /**
+     * Holds the {@link TestCase} annotation used by every test in the test plan.
+     */
+    @TestCase(name = "Benchmark test", points = 3)
+    private static void annotated() {
+    }
+
+}
@@ -0,0 +1,127 @@
+package edu.purdue.cs.percolator.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the output comparisons that run for every assertion on student output:
+ * {@link StringUtilities#fuzzyEquals(String, String)}, the streaming comparisons in
+ * {@link ComparisonUtilities} and the diffs from {@link DiffUtilities}.
+ * <p>
+ * The outputs are {@code lines} lines of typical program output. The actual output differs
+ * from the expected output in spacing and capitalization, and, for the diff, in a single line
+ * near the end, which is the worst case for the comparisons that stop at the first difference.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringUtilitiesBenchmark {
+
+    /**
+     * The number of lines in each output.
+     */
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    /**
+     * The expected output.
+     */
+    private String expected;
+
+    /**
+     * The expected output with different spacing and capitalization.
+     */
+    private String fuzzy;
+
+    /**
+     * The expected output with one line changed near the end.
+     */
+    private String changed;
+
+    /**
+     * The expected output with Windows line endings.
+     */
+    private String crlf;
+
+    /**
+     * Creates the outputs to compare.
+     */
+    @Setup
+    public void createOutputs() {
+        StringBuilder expected = new StringBuilder();
+        StringBuilder fuzzy = new StringBuilder();
+        StringBuilder changed = new StringBuilder();
+        for (int i = 0; i < this.lines; i++) {
+            expected.append("Step ").append(i).append(": total = ").append(i * 31L).append('\n');
+            fuzzy.append("step  ").append(i).append(":total =\t").append(i * 31L).append("\r\n");
+            changed.append("Step ").append(i).append(": total = ")
+                .append(i == this.lines - 2 ? -1 : i * 31L).append('\n');
+        }
+        this.expected = expected.toString();
+        this.fuzzy = fuzzy.toString();
+        this.changed = changed.toString();
+        this.crlf = this.expected.replace("\n", "\r\n");
+    }
+
+    /**
+     * Compares two fuzzy-equal {@link String}s.
+     *
+     * @return the result of the comparison
+     */
+    @Benchmark
+    public boolean fuzzyEquals() {
+        return StringUtilities.fuzzyEquals(this.expected, this.fuzzy);
+    }
+
+    /**
+     * Compares two fuzzy-equal outputs through {@link java.io.Reader}s.
+     *
+     * @return the result of the comparison
+     */
+    @Benchmark
+    public boolean contentEqualsFuzzy() {
+        return ComparisonUtilities.contentEquals(new StringReader(this.expected), new StringReader(this.fuzzy),
+            ComparisonUtilities.Mode.FUZZY);
+    }
+
+    /**
+     * Compares two outputs that differ only in line endings through {@link java.io.Reader}s.
+     *
+     * @return the result of the comparison
+     */
+    @Benchmark
+    public boolean contentEqualsLineEndings() {
+        return ComparisonUtilities.contentEquals(new StringReader(this.expected), new StringReader(this.crlf),
+            ComparisonUtilities.Mode.IGNORE_LINE_ENDINGS);
+    }
+
+    /**
+     * Diffs two outputs that differ in a single line.
+     *
+     * @return the diff
+     */
+    @Benchmark
+    public String diff() {
+        return DiffUtilities.diff(this.expected, this.changed);
+    }
+
+}
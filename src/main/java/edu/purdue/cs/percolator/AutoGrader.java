@@ -2,20 +2,46 @@ package edu.purdue.cs.percolator;
 
 import com.github.tkutcher.jgrade.Grader;
 import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+import org.junit.Ignore;
+import org.junit.runner.Computer;
+import org.junit.runner.Description;
 import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.notification.Failure;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * The {@link AutoGrader} class contains builder methods to create an auto-grader.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.2
+ * @version 1.3
  * @since 1.0
  */
 public final class AutoGrader {
 
+    /**
+     * The default maximum number of bytes of output to keep for each test case.
+     */
+    static final int DEFAULT_OUTPUT_LIMIT = 64 * 1024;
+
     /**
      * The test suite classes to run.
      */
@@ -32,10 +58,82 @@ public final class AutoGrader {
     private OutputFormatter formatter;
 
     /**
-     * The optional code style checker that will run after grading.
+     * The optional code style checker that will run during or after grading.
      */
     private StyleChecker styleChecker;
 
+    /**
+     * Whether the code style checker should run on a separate thread while the test suites run.
+     */
+    private boolean concurrentStyleCheck;
+
+    /**
+     * The maximum number of test suites (or test methods) to run at once.
+     */
+    private int parallelism;
+
+    /**
+     * Whether the test methods inside of a test suite should run concurrently.
+     */
+    private boolean parallelMethods;
+
+    /**
+     * The maximum number of bytes of output to keep for each test case.
+     */
+    private int outputLimit;
+
+    /**
+     * The time limit for each test case in milliseconds, or 0 for no time limit.
+     */
+    private long timeoutMillis;
+
+    /**
+     * The maximum number of bytes each test case may allocate, or 0 for no allocation limit.
+     */
+    private long maxAllocatedBytes;
+
+    /**
+     * The file to write the metrics of each test case to, or {@code null} to skip the metrics.
+     */
+    private String metricsFile;
+
+    /**
+     * The file to append each test result to as soon as it is known, or {@code null} for no checkpoint.
+     */
+    private String checkpointFile;
+
+    /**
+     * The time budget for running all of the test suites in milliseconds, or 0 for no time budget.
+     */
+    private long timeBudgetMillis;
+
+    /**
+     * The durations of the test cases in earlier runs, or {@code null} if no history is kept.
+     */
+    private DurationHistory durationHistory;
+
+    /**
+     * The position of the shard of the test plan to run, starting at 0.
+     */
+    private int shardIndex;
+
+    /**
+     * The number of shards the test plan is split into.
+     */
+    private int shardCount;
+
+    /**
+     * The file to write the unscaled results of the shard to, or {@code null} if the whole
+     * test plan runs in this JVM.
+     */
+    private String shardFile;
+
+    /**
+     * The compiler used to compile each submission in memory, or {@code null} if the
+     * submissions are already compiled.
+     */
+    private SubmissionCompiler compiler;
+
     /**
      * Private default constructor so objects are created using the {@link AutoGrader#grade} method.
      */
@@ -59,6 +157,13 @@ public final class AutoGrader {
         grader.withMaxScore(100);
         grader.onGradescope();
         grader.styleChecker = null;
+        grader.withConcurrentStyleCheck(false);
+        grader.withParallelism(1);
+        grader.withOutputLimit(DEFAULT_OUTPUT_LIMIT);
+        grader.withTimeout(0);
+        grader.withMaxAllocatedBytes(0);
+        grader.withMetricsFile(null);
+        grader.withCheckpointFile(null);
 
         return grader;
     }
@@ -90,14 +195,266 @@ public final class AutoGrader {
         return this;
     }
 
+    /**
+     * Specifies whether the {@link StyleChecker} should run on a separate thread while the
+     * test suites run, instead of after them. Since the code style audit does not depend on
+     * the test results, this makes grading take about as long as the slower of the two rather
+     * than both of them together. The results are the same either way. Defaults to false.
+     *
+     * @param concurrent whether the style checker should run while the test suites run
+     * @return the {@link AutoGrader} with the new style checker setting
+     */
+    public AutoGrader withConcurrentStyleCheck(boolean concurrent) {
+        this.concurrentStyleCheck = concurrent;
+        return this;
+    }
+
+    /**
+     * Specifies the number of test suites to run at once. The test methods inside of
+     * each test suite still run one at a time. Defaults to 1, which runs every test
+     * suite on the calling thread.
+     * <p>
+     * The results are reported in the same order, and scaled to the same scores,
+     * as when the test suites run one at a time.
+     *
+     * @param threads the maximum number of test suites to run at once
+     * @return the {@link AutoGrader} with the new parallelism setting
+     */
+    public AutoGrader withParallelism(int threads) {
+        return withParallelism(threads, false);
+    }
+
+    /**
+     * Specifies the number of test suites to run at once, and whether the test methods
+     * inside of each test suite should also run concurrently. Only use concurrent test methods
+     * if the test cases in a suite do not share any state.
+     * <p>
+     * The results are reported in the same order, and scaled to the same scores,
+     * as when the tests run one at a time.
+     *
+     * @param threads         the maximum number of test suites (or test methods) to run at once
+     * @param parallelMethods whether the test methods inside of a test suite should run concurrently
+     * @return the {@link AutoGrader} with the new parallelism setting
+     */
+    public AutoGrader withParallelism(int threads, boolean parallelMethods) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+
+        this.parallelism = threads;
+        this.parallelMethods = parallelMethods;
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of bytes of standard output to keep for each test case.
+     * If a test case prints more than this, only the beginning and the end of its output are kept.
+     * Test cases can override this limit with {@link TestCase#outputLimit()}. Defaults to 64 KiB.
+     *
+     * @param bytes the maximum number of bytes of output to keep for each test case
+     * @return the {@link AutoGrader} with the new output limit
+     */
+    public AutoGrader withOutputLimit(int bytes) {
+        if (bytes < 1) {
+            throw new IllegalArgumentException("bytes must be positive.");
+        }
+
+        this.outputLimit = bytes;
+        return this;
+    }
+
+    /**
+     * Specifies the time limit for each test case. A test case that does not finish in time
+     * is interrupted, and abandoned if it does not stop, so that the remaining test cases
+     * can still run. It receives a score of 0. Test cases can override this limit with
+     * {@link TestCase#timeoutMillis()}. Defaults to 0, meaning there is no time limit.
+     *
+     * @param millis the time limit for each test case in milliseconds, or 0 for no time limit
+     * @return the {@link AutoGrader} with the new time limit
+     */
+    public AutoGrader withTimeout(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("millis cannot be negative.");
+        }
+
+        this.timeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of bytes of memory each test case may allocate. This counts
+     * every allocation made by the test, not just the memory in use at one time, so it can be used
+     * to grade how efficiently a solution uses memory. The allocations are sampled while the test
+     * runs, and a test case that goes over the limit is stopped in the same way as one that goes over
+     * its time limit. It receives a score of 0. Only allocations made on the thread running the test
+     * are counted. Test cases can override this limit with {@link TestCase#maxAllocatedBytes()}.
+     * Defaults to 0, meaning there is no allocation limit.
+     *
+     * @param bytes the maximum number of bytes each test case may allocate, or 0 for no limit
+     * @return the {@link AutoGrader} with the new allocation limit
+     */
+    public AutoGrader withMaxAllocatedBytes(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes cannot be negative.");
+        }
+
+        this.maxAllocatedBytes = bytes;
+        return this;
+    }
+
+    /**
+     * Specifies a file to write the metrics of each test case to, next to the grading results.
+     * The metrics are the wall-clock time, CPU time and bytes allocated by each test, written
+     * as JSON, so that the tests that dominate grading time or memory can be found. Tests whose
+     * output went over the output limit are marked as well. When grading
+     * a batch of submissions, the metrics of each submission are instead written next to its
+     * results, to a file with the extension {@code .metrics.json}. Defaults to {@code null},
+     * meaning no metrics are written.
+     *
+     * @param metricsFile the file to write the metrics to, or {@code null} to skip the metrics
+     * @return the {@link AutoGrader} with the new metrics file
+     */
+    public AutoGrader withMetricsFile(String metricsFile) {
+        this.metricsFile = metricsFile;
+        return this;
+    }
+
+    /**
+     * Specifies a file to append each test result to as soon as the test finishes. If grading
+     * never completes (e.g., the grading platform kills the container at its time limit, or a test
+     * crashes the JVM), the results of the tests that finished can be turned into grading results
+     * with {@link CheckpointRecovery}. When grading a batch of submissions, the checkpoint of each
+     * submission is instead written next to its results, to a file with the extension
+     * {@code .checkpoint.ndjson}. Defaults to {@code null}, meaning no checkpoint is written.
+     *
+     * @param checkpointFile the file to write the checkpoint to, or {@code null} for no checkpoint
+     * @return the {@link AutoGrader} with the new checkpoint file
+     */
+    public AutoGrader withCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        return this;
+    }
+
+    /**
+     * Specifies a time budget for running all of the test suites. Test cases that run one at a time
+     * are started in order of their expected points per second, so that the most valuable tests run
+     * first. A test case that is still running when the budget runs out is stopped as if it had
+     * reached its time limit. Once the budget has run out, or if a test case is expected to take
+     * longer than the time that is left, the test case is not started; it receives a score of 0
+     * with the output {@value TestScheduler#NOT_RUN_MESSAGE}. The expected durations come from the history set
+     * with {@link #withDurationHistory(String)}. Only test suites run with the default JUnit 4
+     * runner are scheduled. Defaults to 0, meaning there is no time budget.
+     *
+     * @param millis the time budget in milliseconds, or 0 for no time budget
+     * @return the {@link AutoGrader} with the new time budget
+     */
+    public AutoGrader withTimeBudget(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("millis cannot be negative.");
+        }
+
+        this.timeBudgetMillis = millis;
+        return this;
+    }
+
+    /**
+     * Specifies a file to remember how long each test case took in earlier runs. Each assignment
+     * should have its own history file. The file is read when this method is called and updated
+     * after each run. When the test cases run one at a time, they are started in order of their
+     * expected points per second (see {@link #withTimeBudget(long)}). When they run on several
+     * threads (see {@link #withParallelism(int)}), the test suites and test methods expected to take
+     * the longest are started first, so that all threads finish at about the same time. Test cases
+     * that have never run are expected to take as long as the average test case. Defaults to
+     * {@code null}, meaning no history is kept.
+     *
+     * @param historyFile the file to keep the history in, or {@code null} for no history
+     * @return the {@link AutoGrader} with the new history file
+     */
+    public AutoGrader withDurationHistory(String historyFile) {
+        this.durationHistory = historyFile == null ? null : new DurationHistory(Paths.get(historyFile));
+        return this;
+    }
+
+    /**
+     * Specifies that only one shard of the test plan should run, so that the test cases can be
+     * split across several JVMs. The test cases are dealt out to the shards in turn, in test plan
+     * order, so every JVM that runs the same test suites with the same number of shards runs a
+     * different set of test cases. Only the first shard (with index 0) runs the code style check.
+     * <p>
+     * Instead of printing the grading results, the shard writes the whole test plan and the
+     * unscaled results of its own test cases to the result file, in the same format as
+     * {@link #withCheckpointFile(String)}. Once every shard has finished, {@link ShardMerger}
+     * combines the result files, scales the scores once and prints the grading results. When
+     * grading a batch of submissions, the results of each submission are instead written to a file
+     * in the output directory with the extension {@code .shard-<index>.ndjson}.
+     *
+     * @param index      the position of the shard to run, starting at 0
+     * @param count      the number of shards
+     * @param resultFile the file to write the results of the shard to
+     * @return the {@link AutoGrader} with the new shard setting
+     */
+    public AutoGrader withShard(int index, int count, String resultFile) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive.");
+        } else if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("index must be between 0 and count - 1.");
+        } else if (resultFile == null) {
+            throw new IllegalArgumentException("resultFile cannot be null.");
+        }
+
+        this.shardIndex = index;
+        this.shardCount = count;
+        this.shardFile = resultFile;
+        return this;
+    }
+
+    /**
+     * Specifies whether each submission should be compiled in memory before it is graded. The
+     * Java files in the submission directory (and its subdirectories) are compiled against the
+     * class path of the grading JVM, and the classes are loaded straight from memory, so there is
+     * no need to run {@code javac} first. If the submission does not compile, the compile errors
+     * are reported as a test result named {@value SubmissionCompiler#RESULT_NAME} with no points,
+     * and the test cases are not run; each receives a score of 0 with the output
+     * {@value SubmissionCompiler#NOT_RUN_MESSAGE}. Class files in the submission directory are
+     * never loaded. The compiler is created once and reused for every submission.
+     * <p>
+     * Applies to {@link #run(String)}, {@link #runBatch(List, String)} and {@link GradingDaemon},
+     * which grade submission directories. {@link #run()} grades the classes already on the
+     * class path, so it is not affected. Defaults to false. Requires a JDK.
+     *
+     * @param compile whether each submission should be compiled in memory
+     * @return the {@link AutoGrader} with the new compilation setting
+     */
+    public AutoGrader withInMemoryCompilation(boolean compile) {
+        if (!compile) {
+            this.compiler = null;
+        } else if (this.compiler == null) {
+            this.compiler = new SubmissionCompiler();
+        }
+        return this;
+    }
+
     /**
      * Specifies the grading platform to be Gradescope.
      *
      * @return the {@link AutoGrader} with the new platform setting
      */
     public AutoGrader onGradescope() {
-        if (!(this.formatter instanceof GradescopeFormatter)) {
-            this.formatter = new GradescopeFormatter();
+        return onGradescope(false);
+    }
+
+    /**
+     * Specifies the grading platform to be Gradescope, and whether the results
+     * should be printed on a single line instead of being indented. Compact output
+     * is smaller, which helps when there are many test cases with long output.
+     *
+     * @param compact whether the results should be printed on a single line
+     * @return the {@link AutoGrader} with the new platform setting
+     */
+    public AutoGrader onGradescope(boolean compact) {
+        if (!(this.formatter instanceof GradescopeFormatter)
+            || ((GradescopeFormatter) this.formatter).isCompact() != compact) {
+            this.formatter = new GradescopeFormatter(compact);
         }
         return this;
     }
@@ -126,37 +483,364 @@ public final class AutoGrader {
     }
 
     /**
-     * Runs the grader and prints out the results.
+     * Runs the grader and prints out the results. If only one shard of the test plan runs,
+     * its results are written to the result file of the shard instead.
      */
     public void run() {
+        String resultFile = this.shardFile != null ? this.shardFile : this.checkpointFile;
+        Grader grader = grade(this.testSuites, this.styleChecker, null,
+            this.metricsFile == null ? null : new File(this.metricsFile),
+            resultFile == null ? null : new File(resultFile));
+        if (this.shardFile == null) {
+            formatter.printGradingResults(grader);
+        }
+    }
+
+    /**
+     * Grades a single submission directory in its own class loader and prints out the results.
+     * The directory must contain the compiled student classes, or the Java files of the student
+     * if the submission is compiled in memory (see {@link #withInMemoryCompilation(boolean)}).
+     * If only one shard of the test plan runs, its results are written to the result file of
+     * the shard instead.
+     *
+     * @param submissionDirectory the directory with the submission
+     */
+    public void run(String submissionDirectory) {
+        File submission = new File(submissionDirectory);
+        if (!submission.exists() || !submission.canExecute() || !submission.isDirectory()) {
+            throw new IllegalArgumentException("submissionDirectory parameter must be a valid directory " +
+                "that is readable.");
+        }
+
+        String resultFile = this.shardFile != null ? this.shardFile : this.checkpointFile;
+        gradeSubmission(submission, System.out, System.err,
+            this.metricsFile == null ? null : new File(this.metricsFile),
+            resultFile == null ? null : new File(resultFile));
+    }
+
+    /**
+     * Grades many submissions, one after another, in the same JVM. This avoids paying
+     * for JVM startup and for loading the grading framework once per submission.
+     * <p>
+     * Each submission directory must contain the compiled student classes, or the Java files of
+     * the student if the submissions are compiled in memory. The student
+     * classes and the test suites are loaded into a new class loader for every submission,
+     * so no static state is shared between submissions. If a {@link StyleChecker} is used,
+     * it audits the Java files in each submission directory with the configuration it was
+     * created with.
+     * <p>
+     * The grading results of each submission are written to a file in the output directory that
+     * is named after the submission directory, with the extension {@code .out}. No two submission
+     * directories may have the same name, since their output files would overwrite each other.
+     * If the grading platform prints a separate grading report (e.g., Vocareum), the report is
+     * written to a file with the extension {@code .err}. If a metrics file is set, the metrics
+     * are written to a file with the extension {@code .metrics.json}, and if a checkpoint file is
+     * set, the checkpoint is written to a file with the extension {@code .checkpoint.ndjson}. If
+     * only one shard of the test plan runs, the results of the shard are written to a file with
+     * the extension {@code .shard-<index>.ndjson} instead of the {@code .out} file.
+     * <p>
+     * If a submission cannot be graded (e.g., because one of its files cannot be written), the
+     * error is written to a file with the extension {@code .failed}, and the remaining submissions
+     * are still graded.
+     *
+     * @param submissionDirectories the directories with the compiled classes of each submission
+     * @param outputDirectory       the directory to write the grading results to
+     */
+    public void runBatch(List<String> submissionDirectories, String outputDirectory) {
+        File outputDir = new File(outputDirectory);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalArgumentException("outputDirectory parameter must specify a valid directory.");
+        }
+
+        Set<String> names = new HashSet<>();
+        for (String submissionDirectory : submissionDirectories) {
+            File submission = new File(submissionDirectory);
+            if (!submission.exists() || !submission.canExecute() || !submission.isDirectory()) {
+                throw new IllegalArgumentException("submissionDirectories parameter must only contain " +
+                    "valid directories that are readable.");
+            }
+            if (!names.add(submission.getAbsoluteFile().getName())) {
+                throw new IllegalArgumentException("submissionDirectories parameter cannot contain two " +
+                    "directories with the same name: " + submission.getAbsoluteFile().getName() + ".");
+            }
+        }
+
+        for (String submissionDirectory : submissionDirectories) {
+            File submission = new File(submissionDirectory);
+            try {
+                gradeSubmission(submission, outputDir);
+            } catch (RuntimeException | LinkageError e) {
+                writeFailure(e, new File(outputDir, submission.getAbsoluteFile().getName() + ".failed"));
+            }
+        }
+    }
+
+    /**
+     * Writes the error that stopped a submission from being graded to a file.
+     *
+     * @param error the error that stopped the submission from being graded
+     * @param file  the file to write the error to
+     */
+    private static void writeFailure(Throwable error, File file) {
+        try (PrintStream out = new PrintStream(new FileOutputStream(file))) {
+            error.printStackTrace(out);
+        } catch (IOException e) {
+            error.addSuppressed(e);
+            error.printStackTrace();
+        }
+    }
+
+    /**
+     * Grades a single submission in its own class loader and writes the results to the
+     * output directory.
+     *
+     * @param submission the directory with the compiled classes of the submission
+     * @param outputDir  the directory to write the grading results to
+     */
+    private void gradeSubmission(File submission, File outputDir) {
+        String name = submission.getAbsoluteFile().getName();
+        if (this.shardFile != null) {
+            PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+            gradeSubmission(submission, discard, discard,
+                this.metricsFile == null ? null : new File(outputDir, name + ".metrics.json"),
+                new File(outputDir, name + ".shard-" + this.shardIndex + ".ndjson"));
+            return;
+        }
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(outputDir, name + ".out")));
+             PrintStream err = new PrintStream(report)) {
+            gradeSubmission(submission, out, err,
+                this.metricsFile == null ? null : new File(outputDir, name + ".metrics.json"),
+                this.checkpointFile == null ? null : new File(outputDir, name + ".checkpoint.ndjson"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (report.size() > 0) {
+            try (FileOutputStream err = new FileOutputStream(new File(outputDir, name + ".err"))) {
+                report.writeTo(err);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Grades a single submission in its own class loader and prints the results
+     * to the given streams.
+     *
+     * @param submission the directory with the compiled classes of the submission
+     * @param out        the stream for the grading results
+     * @param err        the stream for the grading report, if the platform uses one
+     */
+    void gradeSubmission(File submission, PrintStream out, PrintStream err) {
+        gradeSubmission(submission, out, err, null, null);
+    }
+
+    /**
+     * Grades a single submission in its own class loader and prints the results
+     * to the given streams. If only one shard of the test plan runs, nothing is printed,
+     * and the results of the shard are only written to the checkpoint.
+     *
+     * @param submission     the directory with the compiled classes of the submission
+     * @param out            the stream for the grading results
+     * @param err            the stream for the grading report, if the platform uses one
+     * @param metricsFile    the file to write the metrics of each test case to, or {@code null}
+     * @param checkpointFile the file to append each test result to, or {@code null}
+     */
+    void gradeSubmission(File submission, PrintStream out, PrintStream err, File metricsFile,
+                         File checkpointFile) {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+
+        SubmissionCompiler.Result compiled = this.compiler == null ? null : this.compiler.compile(submission);
+        try (SubmissionClassLoader loader = compiled == null
+            ? new SubmissionClassLoader(submission, this.testSuites)
+            : new SubmissionClassLoader(this.testSuites, compiled.getClasses())) {
+            thread.setContextClassLoader(loader);
+            StyleChecker submissionStyleChecker = this.styleChecker == null
+                ? null
+                : this.styleChecker.forDirectory(submission.getPath());
+
+            Grader grader = grade(loader.loadTestSuites(this.testSuites), submissionStyleChecker,
+                compiled == null ? null : compiled.getFailure(), metricsFile, checkpointFile);
+            if (this.shardFile == null) {
+                this.formatter.printGradingResults(grader, out, err);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * Runs the test suites and the style checker, and collects the results. If only one shard of
+     * the test plan runs, the style checker only runs in the first shard.
+     *
+     * @param testSuites     the test suites to run
+     * @param styleChecker   the style checker to run, or {@code null} to skip the style check
+     * @param compilation    the result for a submission that does not compile, or {@code null}
+     * @param metricsFile    the file to write the metrics of each test case to, or {@code null}
+     * @param checkpointFile the file to append each test result to, or {@code null}
+     * @return the grader with the results
+     */
+    private Grader grade(Class<?>[] testSuites, StyleChecker styleChecker, GradedTestResult compilation,
+                         File metricsFile, File checkpointFile) {
         Grader grader = new Grader();
         grader.setMaxScore(this.maxScore);
-        TestCaseListener listener = new TestCaseListener(this.maxScore);
+        CheckpointWriter checkpoint = checkpointFile == null
+            ? null
+            : new CheckpointWriter(checkpointFile, this.maxScore);
+        try {
+            TestCaseListener listener = new TestCaseListener(this.maxScore, this.outputLimit, checkpoint);
+            TestScheduler scheduler = this.timeBudgetMillis > 0 || this.durationHistory != null
+                ? new TestScheduler(this.durationHistory, this.timeBudgetMillis)
+                : null;
+
+            JUnitCore runner = new JUnitCore();
+            runner.addListener(listener);
+
+            FutureTask<GradedTestResult> styleCheck = null;
+            if (this.shardIndex != 0) {
+                styleChecker = null;
+            }
+            if (styleChecker != null && this.concurrentStyleCheck) {
+                styleCheck = new FutureTask<>(styleChecker::grade);
+                Thread thread = new Thread(styleCheck, "percolator-style-check");
+                thread.setDaemon(true);
+                thread.start();
+            }
 
-        JUnitCore runner = new JUnitCore();
-        runner.addListener(listener);
+            grader.startTimer();
+            if (scheduler != null) {
+                scheduler.start();
+            }
+            Runner suite = Request.classes(createComputer(scheduler), testSuites).getRunner();
+            if (this.shardFile != null) {
+                listener.recordTestPlan(suite.getDescription());
+                try {
+                    new ShardFilter(suite.getDescription(), this.shardIndex, this.shardCount).apply(suite);
+                } catch (NoTestsRemainException e) {
+                    // This shard has no tests to run
+                    suite = null;
+                }
+            }
+            if (suite != null && compilation != null) {
+                failWithoutRunning(suite.getDescription(), listener);
+            } else if (suite != null) {
+                runner.run(suite);
+            }
+            grader.stopTimer();
 
-        grader.startTimer();
-        runner.run(this.testSuites);
-        grader.stopTimer();
+            listener.getTestResults().forEach(grader::addGradedTestResult);
+            // If the submission does not compile, the tests were never run, so nothing was measured
+            List<TestMetrics> metrics = compilation == null ? listener.getTestMetrics() : List.of();
+            if (scheduler != null && compilation == null) {
+                scheduler.recordDurations(metrics);
+            }
+            if (metricsFile != null) {
+                TestMetrics.write(metrics, metricsFile);
+            }
 
-        listener.getTestResults().forEach(grader::addGradedTestResult);
+            if (compilation != null) {
+                grader.addGradedTestResult(compilation);
+                if (checkpoint != null) {
+                    checkpoint.result(compilation.getName(), -1, compilation);
+                }
+            }
+
+            GradedTestResult style = null;
+            if (styleCheck != null) {
+                style = awaitStyleCheck(styleCheck);
+            } else if (styleChecker != null) {
+                style = styleChecker.grade();
+            }
+            if (style != null) {
+                grader.addGradedTestResult(style);
+                if (checkpoint != null) {
+                    checkpoint.style(style);
+                }
+            }
+
+            return grader;
+        } finally {
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        }
+    }
+
+    /**
+     * Reports every test in a test plan as failed without running it, because the submission
+     * does not compile. Ignored tests are left out, as they would be in a real run.
+     *
+     * @param plan     the {@link Description} of the test plan
+     * @param listener the listener to report the results to
+     */
+    private static void failWithoutRunning(Description plan, TestCaseListener listener) {
+        listener.testRunStarted(plan);
+        failTests(plan, listener);
+        listener.testRunFinished(new Result());
+    }
 
-        if (this.styleChecker != null) {
-            runStyleChecker(grader);
+    /**
+     * Reports a test, or every test in a suite, as failed without running it.
+     *
+     * @param description the {@link Description} of the test or suite
+     * @param listener    the listener to report the results to
+     */
+    private static void failTests(Description description, TestCaseListener listener) {
+        if (description.getAnnotation(Ignore.class) != null) {
+            return;
+        }
+        if (description.isTest()) {
+            listener.testStarted(description);
+            listener.testFailure(new Failure(description, new AssertionError(SubmissionCompiler.NOT_RUN_MESSAGE)));
+            listener.testFinished(description);
         }
+        description.getChildren().forEach(child -> failTests(child, listener));
+    }
 
-        formatter.printGradingResults(grader);
+    /**
+     * Waits for a style check running on a separate thread to finish.
+     *
+     * @param styleCheck the running style check
+     * @return the result of the style check
+     */
+    private static GradedTestResult awaitStyleCheck(FutureTask<GradedTestResult> styleCheck) {
+        try {
+            return styleCheck.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
     }
 
     /**
-     * Runs the style checker and adds the audit result to the report.
+     * Creates the {@link Computer} used to run the test suites,
+     * based on the parallelism settings.
      *
-     * @param grader the grader where the result will be added
+     * @param scheduler the scheduler that orders the tests and keeps track of the time budget,
+     *                  or {@code null} for none
+     * @return the {@link Computer} used to run the test suites
      */
-    private void runStyleChecker(Grader grader) {
-        GradedTestResult result = this.styleChecker.grade();
-        grader.addGradedTestResult(result);
+    private Computer createComputer(TestScheduler scheduler) {
+        if (this.parallelism == 1 && !this.parallelMethods) {
+            return new GradingComputer(this.timeoutMillis, this.maxAllocatedBytes, scheduler);
+        }
+        return new BoundedParallelComputer(this.parallelism, this.parallelMethods, this.timeoutMillis,
+            this.maxAllocatedBytes, scheduler);
     }
 
 }
@@ -0,0 +1,202 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.runner.Runner;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.RunnerScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link BoundedParallelComputer} class is a {@link GradingComputer} that runs test suites,
+ * and optionally the test methods inside of them, on a fixed number of threads.
+ * <p>
+ * Unlike {@link org.junit.experimental.ParallelComputer}, which creates an unbounded thread
+ * pool for every test class, all test suites share one pool and all test methods share another,
+ * so the number of tests running at once never exceeds the configured parallelism.
+ * Since the test suites only wait on the test methods (and never the other way around),
+ * using two separate pools cannot deadlock.
+ * <p>
+ * If there is a {@link TestScheduler}, the test suites and test methods are handed to the pools
+ * longest first, using the durations remembered from earlier runs. The tests expected to take
+ * the longest start right away, and the short tests fill in the gaps at the end, so the
+ * grading run takes not much longer than the total time of the tests divided by the parallelism.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class BoundedParallelComputer extends GradingComputer {
+
+    /**
+     * The thread pool used to run the test suites.
+     */
+    private final ExecutorService suitePool;
+
+    /**
+     * The thread pool used to run the test methods, or {@code null}
+     * if the methods of a test suite run serially.
+     */
+    private final ExecutorService methodPool;
+
+    /**
+     * Creates a new {@link BoundedParallelComputer}.
+     *
+     * @param parallelism              the maximum number of test suites (or methods) to run at once
+     * @param parallelMethods          whether the methods of a test suite should also run concurrently
+     * @param defaultTimeoutMillis     the time limit for tests without their own time limit,
+     *                                 or 0 for no time limit
+     * @param defaultMaxAllocatedBytes the allocation limit for tests without their own allocation
+     *                                 limit, or 0 for no allocation limit
+     */
+    BoundedParallelComputer(int parallelism, boolean parallelMethods, long defaultTimeoutMillis,
+                            long defaultMaxAllocatedBytes) {
+        this(parallelism, parallelMethods, defaultTimeoutMillis, defaultMaxAllocatedBytes, null);
+    }
+
+    /**
+     * Creates a new {@link BoundedParallelComputer}.
+     *
+     * @param parallelism              the maximum number of test suites (or methods) to run at once
+     * @param parallelMethods          whether the methods of a test suite should also run concurrently
+     * @param defaultTimeoutMillis     the time limit for tests without their own time limit,
+     *                                 or 0 for no time limit
+     * @param defaultMaxAllocatedBytes the allocation limit for tests without their own allocation
+     *                                 limit, or 0 for no allocation limit
+     * @param scheduler                the scheduler that orders the tests and keeps track of the
+     *                                 time budget, or {@code null} for none
+     */
+    BoundedParallelComputer(int parallelism, boolean parallelMethods, long defaultTimeoutMillis,
+                            long defaultMaxAllocatedBytes, TestScheduler scheduler) {
+        super(defaultTimeoutMillis, defaultMaxAllocatedBytes, scheduler);
+        this.suitePool = Executors.newFixedThreadPool(parallelism, threadFactory("percolator-suite-"));
+        this.methodPool = parallelMethods
+            ? Executors.newFixedThreadPool(parallelism, threadFactory("percolator-test-"))
+            : null;
+    }
+
+    /**
+     * Creates the runner for all of the test suites. The test suites are scheduled on the
+     * suite pool, longest first if there is a {@link TestScheduler}, and both pools are shut
+     * down once every test suite has finished.
+     *
+     * @param builder the builder used to create the test suite runners
+     * @param classes the test suite classes
+     * @return the runner for all of the test suites
+     * @throws InitializationError if the suite runner cannot be created
+     */
+    @Override
+    public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+        Runner suite = super.getSuite(builder, classes);
+        if (suite instanceof ParentRunner) {
+            ParentRunner<?> parent = (ParentRunner<?>) suite;
+            parent.setScheduler(longestFirst(parent, new PoolScheduler(this.suitePool, true)));
+        }
+        return suite;
+    }
+
+    /**
+     * Creates the runner for a single test suite. If the test methods run concurrently,
+     * they are scheduled on the method pool, longest first if there is a {@link TestScheduler}.
+     *
+     * @param builder   the builder used to create the test suite runner
+     * @param testClass the test suite class
+     * @return the runner for the test suite
+     * @throws Throwable if the runner cannot be created
+     */
+    @Override
+    protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+        Runner runner = super.getRunner(builder, testClass);
+        if (this.methodPool != null && runner instanceof ParentRunner) {
+            ParentRunner<?> parent = (ParentRunner<?>) runner;
+            parent.setScheduler(longestFirst(parent, new PoolScheduler(this.methodPool, false)));
+        }
+        return runner;
+    }
+
+    /**
+     * Creates a {@link ThreadFactory} for daemon threads, so that a test that never
+     * finishes cannot keep the JVM alive after grading is done.
+     *
+     * @param prefix the prefix of the thread names
+     * @return the new {@link ThreadFactory}
+     */
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The {@link PoolScheduler} class schedules the children of a
+     * {@link ParentRunner} on a thread pool and waits for them to finish.
+     */
+    private final class PoolScheduler implements RunnerScheduler {
+
+        /**
+         * The pool to run the children on.
+         */
+        private final ExecutorService pool;
+
+        /**
+         * Whether this scheduler belongs to the top-level suite and should
+         * shut down the thread pools when it is finished.
+         */
+        private final boolean topLevel;
+
+        /**
+         * The children that have been scheduled.
+         */
+        private final List<Future<?>> scheduled;
+
+        /**
+         * Creates a new {@link PoolScheduler}.
+         *
+         * @param pool     the pool to run the children on
+         * @param topLevel whether this scheduler belongs to the top-level suite
+         */
+        PoolScheduler(ExecutorService pool, boolean topLevel) {
+            this.pool = pool;
+            this.topLevel = topLevel;
+            this.scheduled = new ArrayList<>();
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            this.scheduled.add(this.pool.submit(childStatement));
+        }
+
+        @Override
+        public void finished() {
+            try {
+                for (Future<?> child : this.scheduled) {
+                    child.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                if (this.topLevel) {
+                    suitePool.shutdown();
+                    if (methodPool != null) {
+                        methodPool.shutdown();
+                    }
+                }
+            }
+        }
+
+    }
+
+}
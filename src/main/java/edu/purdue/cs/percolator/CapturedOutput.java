@@ -0,0 +1,269 @@
+package edu.purdue.cs.percolator;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * The {@link CapturedOutput} class holds the standard output of a single test.
+ * <p>
+ * The amount of memory used by the output is capped. Once more output has been written
+ * than fits, only the beginning and the end of the output are kept, and the output is
+ * marked as truncated. Runs of identical lines are folded into a single line followed by
+ * {@code (repeated N times)}, so a test that prints the same line in a loop does not fill
+ * up the output. Nothing is allocated until the test writes something.
+ * <p>
+ * Once the test has finished, the output is closed and anything written to it
+ * afterwards (e.g., by threads the test left running) is discarded, so that
+ * the reported output of a test never changes after it is read.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class CapturedOutput {
+
+    /**
+     * The initial size of the head buffer once something is written.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The maximum number of bytes kept from the beginning of the output.
+     */
+    private final int headCapacity;
+
+    /**
+     * The maximum number of bytes kept from the end of the output.
+     */
+    private final int tailCapacity;
+
+    /**
+     * The beginning of the output.
+     */
+    private byte[] head;
+
+    /**
+     * The number of bytes in {@link CapturedOutput#head}.
+     */
+    private int headSize;
+
+    /**
+     * Circular buffer with the end of the output, once the head is full.
+     */
+    private byte[] tail;
+
+    /**
+     * The total number of bytes written to {@link CapturedOutput#tail}.
+     */
+    private long tailWritten;
+
+    /**
+     * The line currently being written.
+     */
+    private ByteArrayOutputStream currentLine;
+
+    /**
+     * The last complete line, which has not been stored yet in case it is repeated.
+     */
+    private byte[] lastLine;
+
+    /**
+     * The number of times {@link CapturedOutput#lastLine} was written in a row.
+     */
+    private long lastLineCount;
+
+    /**
+     * Whether the test has finished.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new, empty {@link CapturedOutput}.
+     *
+     * @param limit the maximum number of bytes of output to keep
+     */
+    CapturedOutput(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive.");
+        }
+
+        this.headCapacity = limit / 2;
+        this.tailCapacity = limit - this.headCapacity;
+        this.closed = false;
+    }
+
+    /**
+     * Writes a single byte to the output.
+     *
+     * @param b the byte to write
+     */
+    synchronized void write(int b) {
+        if (!this.closed) {
+            append(b);
+        }
+    }
+
+    /**
+     * Writes a range of bytes to the output.
+     *
+     * @param b   the bytes to write
+     * @param off the offset of the first byte to write
+     * @param len the number of bytes to write
+     */
+    synchronized void write(byte[] b, int off, int len) {
+        if (!this.closed) {
+            for (int i = off; i < off + len; i++) {
+                append(b[i]);
+            }
+        }
+    }
+
+    /**
+     * Appends a single byte to the line currently being written.
+     *
+     * @param b the byte to append
+     */
+    private void append(int b) {
+        if (this.currentLine == null) {
+            this.currentLine = new ByteArrayOutputStream();
+        }
+
+        this.currentLine.write(b);
+        if (b == '\n') {
+            endLine();
+        } else if (this.currentLine.size() >= this.headCapacity + this.tailCapacity) {
+            // A line this long cannot be folded into anything useful
+            flushLastLine();
+            store(this.currentLine.toByteArray());
+            this.currentLine.reset();
+        }
+    }
+
+    /**
+     * Returns whether some of the output was dropped because it did not fit.
+     *
+     * @return true if the output was truncated, false otherwise
+     */
+    synchronized boolean isTruncated() {
+        return this.tailWritten > this.tailCapacity;
+    }
+
+    /**
+     * Closes the output and returns what was kept of it. If the output was
+     * truncated, a marker with the number of dropped bytes separates the
+     * beginning and the end of the output.
+     *
+     * @return the output of the test
+     */
+    synchronized String close() {
+        if (!this.closed) {
+            this.closed = true;
+            flushLastLine();
+            if (this.currentLine != null && this.currentLine.size() > 0) {
+                store(this.currentLine.toByteArray());
+            }
+            this.currentLine = null;
+        }
+
+        if (this.head == null && this.tail == null) {
+            return "";
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(this.headSize + this.tailCapacity);
+        if (this.head != null) {
+            output.write(this.head, 0, this.headSize);
+        }
+        if (isTruncated()) {
+            long dropped = this.tailWritten - this.tailCapacity;
+            byte[] marker = String.format("%n... (output truncated, %d bytes omitted) ...%n", dropped).getBytes();
+            output.write(marker, 0, marker.length);
+        }
+        if (this.tail != null) {
+            int size = (int) Math.min(this.tailWritten, this.tailCapacity);
+            int start = (int) ((this.tailWritten - size) % this.tailCapacity);
+            int firstPart = Math.min(size, this.tailCapacity - start);
+            output.write(this.tail, start, firstPart);
+            output.write(this.tail, 0, size - firstPart);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Called when a line has been completed. Folds the line into the previous
+     * line if they are identical.
+     */
+    private void endLine() {
+        byte[] line = this.currentLine.toByteArray();
+        this.currentLine.reset();
+
+        if (this.lastLine != null && Arrays.equals(this.lastLine, line)) {
+            this.lastLineCount++;
+        } else {
+            flushLastLine();
+            this.lastLine = line;
+            this.lastLineCount = 1;
+        }
+    }
+
+    /**
+     * Stores the last complete line, along with the number of times it was repeated.
+     */
+    private void flushLastLine() {
+        if (this.lastLine == null) {
+            return;
+        }
+
+        if (this.lastLineCount == 1) {
+            store(this.lastLine);
+        } else {
+            int end = this.lastLine.length - 1;
+            if (end > 0 && this.lastLine[end - 1] == '\r') {
+                end--;
+            }
+            store(Arrays.copyOf(this.lastLine, end));
+            store(String.format(" (repeated %d times)", this.lastLineCount).getBytes());
+            store(Arrays.copyOfRange(this.lastLine, end, this.lastLine.length));
+        }
+
+        this.lastLine = null;
+        this.lastLineCount = 0;
+    }
+
+    /**
+     * Stores bytes in the head of the output, or in the tail once the head is full.
+     *
+     * @param bytes the bytes to store
+     */
+    private void store(byte[] bytes) {
+        int offset = 0;
+        if (this.headSize < this.headCapacity) {
+            int count = Math.min(bytes.length, this.headCapacity - this.headSize);
+            ensureHeadCapacity(this.headSize + count);
+            System.arraycopy(bytes, 0, this.head, this.headSize, count);
+            this.headSize += count;
+            offset = count;
+        }
+
+        if (offset < bytes.length && this.tail == null) {
+            this.tail = new byte[this.tailCapacity];
+        }
+        for (int i = offset; i < bytes.length; i++) {
+            this.tail[(int) (this.tailWritten++ % this.tailCapacity)] = bytes[i];
+        }
+    }
+
+    /**
+     * Grows the head buffer so it can hold at least the given number of bytes.
+     *
+     * @param capacity the number of bytes the head buffer needs to hold
+     */
+    private void ensureHeadCapacity(int capacity) {
+        if (this.head == null) {
+            this.head = new byte[Math.min(Math.max(INITIAL_CAPACITY, capacity), this.headCapacity)];
+        } else if (this.head.length < capacity) {
+            int newLength = (int) Math.min(Math.max((long) this.head.length * 2, capacity), this.headCapacity);
+            this.head = Arrays.copyOf(this.head, newLength);
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.Grader;
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link CheckpointRecovery} class turns a checkpoint written by an {@link AutoGrader}
+ * (see {@link AutoGrader#withCheckpointFile(String)}) into grading results, so that the scores
+ * of the tests that finished are not lost when grading is cut short.
+ * <p>
+ * Test cases that were planned but never finished receive a score of 0, with an output saying
+ * that grading stopped before they finished. Test cases that were never going to run (because
+ * the class-level setup of their test suite failed) are left out, as in the run that wrote
+ * the checkpoint. The results are then scaled to the maximum score in
+ * the same way as a complete run, so a complete checkpoint gives the same results as the run
+ * that wrote it. A line cut off in the middle (e.g., because the JVM crashed while writing it)
+ * is ignored, along with anything after it.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public final class CheckpointRecovery {
+
+    /**
+     * The output of a test case that never finished.
+     */
+    static final String NOT_FINISHED_MESSAGE = "Grading stopped before this test finished.\n";
+
+    /**
+     * Private default constructor so no objects can be created of this type.
+     */
+    private CheckpointRecovery() {
+    }
+
+    /**
+     * Reads a checkpoint and collects the results of the test cases and the code style check.
+     *
+     * @param checkpoint the checkpoint file
+     * @return the grader with the results
+     * @throws UncheckedIOException if the checkpoint cannot be read
+     */
+    static Grader recover(File checkpoint) {
+        return recover(Collections.singletonList(checkpoint));
+    }
+
+    /**
+     * Reads several checkpoints of the same run (e.g., one per shard) and collects the results of
+     * the test cases and the code style check. A test case that finished in any of the checkpoints
+     * keeps its result.
+     *
+     * @param checkpoints the checkpoint files
+     * @return the grader with the results
+     * @throws UncheckedIOException if a checkpoint cannot be read
+     */
+    static Grader recover(List<File> checkpoints) {
+        double maxScore = 0;
+        Map<String, GradedTestResult> results = new LinkedHashMap<>();
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        Set<String> finished = new HashSet<>();
+        Set<String> skipped = new HashSet<>();
+        GradedTestResult style = null;
+
+        for (File checkpoint : checkpoints) {
+            try (BufferedReader reader = Files.newBufferedReader(checkpoint.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    JSONObject record;
+                    try {
+                        record = new JSONObject(line);
+                    } catch (JSONException e) {
+                        break;
+                    }
+
+                    String type = record.getString("type");
+                    if (type.equals(CheckpointWriter.RUN)) {
+                        maxScore = record.getDouble("max_score");
+                    } else if (type.equals(CheckpointWriter.STYLE)) {
+                        style = toResult(record);
+                    } else {
+                        String testKey = record.getString("test");
+                        if (record.has("position")) {
+                            positions.putIfAbsent(testKey, record.getInt("position"));
+                        }
+                        if (type.equals(CheckpointWriter.TEST)) {
+                            results.putIfAbsent(testKey, notFinished(record));
+                        } else if (type.equals(CheckpointWriter.RESULT)) {
+                            results.put(testKey, toResult(record));
+                            finished.add(testKey);
+                        } else if (type.equals(CheckpointWriter.SKIPPED)) {
+                            skipped.add(testKey);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        results.keySet().removeIf(testKey -> skipped.contains(testKey) && !finished.contains(testKey));
+
+        List<Map.Entry<String, GradedTestResult>> ordered = new ArrayList<>(results.entrySet());
+        ordered.sort(Comparator.comparingInt(e -> positions.getOrDefault(e.getKey(), Integer.MAX_VALUE)));
+
+        // The same scaling as TestCaseListener#scaleTestCases
+        double total = ordered.stream().mapToDouble(e -> e.getValue().getPoints()).sum();
+        double ratio = total == 0 ? 0 : maxScore / total;
+
+        Grader grader = new Grader();
+        grader.setMaxScore(maxScore);
+        for (Map.Entry<String, GradedTestResult> entry : ordered) {
+            GradedTestResult result = entry.getValue();
+            result.setPoints(result.getPoints() * ratio);
+            result.setScore(result.getScore() * ratio);
+            grader.addGradedTestResult(result);
+        }
+        if (style != null) {
+            grader.addGradedTestResult(style);
+        }
+        return grader;
+    }
+
+    /**
+     * Reads a test result from a line of the checkpoint.
+     *
+     * @param record the line of the checkpoint
+     * @return the test result
+     */
+    private static GradedTestResult toResult(JSONObject record) {
+        GradedTestResult result = new GradedTestResult(
+            record.getString("name"),
+            record.optString("number", ""),
+            record.getDouble("points"),
+            record.getString("visibility")
+        );
+        result.setScore(record.getDouble("score"));
+        result.addOutput(record.optString("output", ""));
+        result.setPassed(record.getBoolean("passed"));
+        return result;
+    }
+
+    /**
+     * Creates the result of a planned test case that never finished.
+     *
+     * @param record the line of the checkpoint with the planned test case
+     * @return the test result, with a score of 0
+     */
+    private static GradedTestResult notFinished(JSONObject record) {
+        GradedTestResult result = new GradedTestResult(
+            record.getString("name"),
+            record.optString("number", ""),
+            record.getDouble("points"),
+            record.getString("visibility")
+        );
+        result.setScore(0);
+        result.addOutput(NOT_FINISHED_MESSAGE);
+        result.setPassed(false);
+        return result;
+    }
+
+    /**
+     * Recovers the grading results from a checkpoint and prints them out.
+     * Can be used via the command line after an {@link AutoGrader} did not finish.
+     * Takes two command line arguments: 1. the path of the checkpoint file and
+     * 2. the grading platform, either {@code gradescope} or {@code vocareum}, in that order.
+     *
+     * @param args the checkpoint file followed by the grading platform
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 || !(args[1].equals("gradescope") || args[1].equals("vocareum"))) {
+            throw new IllegalArgumentException("CheckpointRecovery takes two arguments: " +
+                "(checkpoint_file, gradescope|vocareum)."
+            );
+        }
+
+        OutputFormatter formatter = args[1].equals("gradescope") ? new GradescopeFormatter() : new VocareumFormatter();
+        formatter.printGradingResults(recover(new File(args[0])));
+    }
+
+}
@@ -0,0 +1,248 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@link CheckpointWriter} class appends grading results to a checkpoint file as soon as
+ * they are known, so that the results of the tests that finished can still be reported if
+ * grading never completes (e.g., the grading platform kills the container at its time limit,
+ * or a test crashes the JVM). {@link CheckpointRecovery} turns a checkpoint into grading results.
+ * <p>
+ * The checkpoint is a file of JSON objects, one per line. Each object has a {@code type}:
+ * <ul>
+ *     <li>{@code run}: the first line, with the maximum score of the run</li>
+ *     <li>{@code test}: a test case in the test plan, written before any test runs</li>
+ *     <li>{@code result}: the result of a test case, with its points before scaling</li>
+ *     <li>{@code skipped}: a test case in the test plan that will never run, because the
+ *     class-level setup of its test suite failed</li>
+ *     <li>{@code style}: the result of the code style check</li>
+ * </ul>
+ * Every line is handed to the operating system as soon as it is written, so it survives the JVM
+ * crashing. Lines are only forced to disk every {@value #SYNC_INTERVAL_MILLIS} milliseconds, and
+ * when the checkpoint is closed, so that tests that finish quickly do not wait on the disk.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class CheckpointWriter implements Closeable {
+
+    /**
+     * The type of the line with the settings of the run.
+     */
+    static final String RUN = "run";
+
+    /**
+     * The type of a line with a test case in the test plan.
+     */
+    static final String TEST = "test";
+
+    /**
+     * The type of a line with the result of a test case.
+     */
+    static final String RESULT = "result";
+
+    /**
+     * The type of a line with a test case in the test plan that will never run.
+     */
+    static final String SKIPPED = "skipped";
+
+    /**
+     * The type of the line with the result of the code style check.
+     */
+    static final String STYLE = "style";
+
+    /**
+     * The minimum time between forcing the checkpoint to disk, in milliseconds.
+     */
+    static final long SYNC_INTERVAL_MILLIS = 200;
+
+    /**
+     * The checkpoint file.
+     */
+    private final FileOutputStream out;
+
+    /**
+     * The time the checkpoint was last forced to disk, in nanoseconds.
+     */
+    private long lastSync;
+
+    /**
+     * Whether lines have been written since the checkpoint was last forced to disk.
+     */
+    private boolean unsynced;
+
+    /**
+     * Creates a new checkpoint file, replacing any existing file, and writes the settings of the run.
+     *
+     * @param file     the checkpoint file
+     * @param maxScore the maximum score the test cases are scaled to
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    CheckpointWriter(File file, double maxScore) {
+        try {
+            this.out = new FileOutputStream(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.lastSync = System.nanoTime();
+
+        StringWriter line = new StringWriter();
+        try {
+            new JsonWriter(line, 0).beginObject()
+                .name("type").value(RUN)
+                .name("max_score").value(maxScore)
+                .endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(line.toString());
+    }
+
+    /**
+     * Writes a test case in the test plan.
+     *
+     * @param testKey  the display name of the test
+     * @param position the position of the test in the test plan
+     * @param testCase the {@link TestCase} annotation of the test
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    void planned(String testKey, int position, TestCase testCase) {
+        StringWriter line = new StringWriter();
+        try {
+            new JsonWriter(line, 0).beginObject()
+                .name("type").value(TEST)
+                .name("test").value(testKey)
+                .name("position").value(position)
+                .name("name").value(testCase.name())
+                .name("number").value(testCase.group())
+                .name("points").value(testCase.points())
+                .name("visibility").value(testCase.visibility().toString())
+                .endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(line.toString());
+    }
+
+    /**
+     * Writes the result of a test case, before it is scaled.
+     *
+     * @param testKey  the display name of the test
+     * @param position the position of the test in the test plan, or -1 if it is not part of the plan
+     * @param result   the result of the test
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    void result(String testKey, int position, GradedTestResult result) {
+        append(toLine(RESULT, testKey, position, result));
+    }
+
+    /**
+     * Writes that a test case in the test plan will never run.
+     *
+     * @param testKey the display name of the test
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    void skipped(String testKey) {
+        StringWriter line = new StringWriter();
+        try {
+            new JsonWriter(line, 0).beginObject()
+                .name("type").value(SKIPPED)
+                .name("test").value(testKey)
+                .endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(line.toString());
+    }
+
+    /**
+     * Writes the result of the code style check.
+     *
+     * @param result the result of the code style check
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    void style(GradedTestResult result) {
+        append(toLine(STYLE, result.getName(), -1, result));
+    }
+
+    /**
+     * Forces the checkpoint to disk and closes it.
+     *
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    @Override
+    public synchronized void close() {
+        try (FileOutputStream out = this.out) {
+            if (this.unsynced) {
+                out.getFD().sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Formats a test result as a line of the checkpoint.
+     *
+     * @param type     the type of the line
+     * @param testKey  the display name of the test
+     * @param position the position of the test in the test plan, or -1 if it is not part of the plan
+     * @param result   the result of the test
+     * @return the line, without a line ending
+     */
+    private static String toLine(String type, String testKey, int position, GradedTestResult result) {
+        StringWriter line = new StringWriter();
+        try {
+            JsonWriter json = new JsonWriter(line, 0).beginObject()
+                .name("type").value(type)
+                .name("test").value(testKey);
+            if (position >= 0) {
+                json.name("position").value(position);
+            }
+            json.name("name").value(result.getName())
+                .name("number").value(result.getNumber())
+                .name("points").value(result.getPoints())
+                .name("score").value(result.getScore())
+                .name("output").value(result.getOutput())
+                .name("visibility").value(result.getVisibility())
+                .name("passed").value(result.passed())
+                .endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Appends a line to the checkpoint, and forces the checkpoint to disk if it has not been
+     * forced for a while.
+     *
+     * @param line the line, without a line ending
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    private synchronized void append(String line) {
+        try {
+            this.out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            this.unsynced = true;
+
+            long now = System.nanoTime();
+            if (now - this.lastSync >= SYNC_INTERVAL_MILLIS * 1_000_000) {
+                this.out.getFD().sync();
+                this.lastSync = now;
+                this.unsynced = false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
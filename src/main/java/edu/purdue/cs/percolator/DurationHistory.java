@@ -0,0 +1,132 @@
+package edu.purdue.cs.percolator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link DurationHistory} class remembers how long each test of an assignment took in earlier
+ * grading runs, so that tests can be scheduled by how long they are expected to take. Tests are
+ * identified by the display name of their {@link org.junit.runner.Description}.
+ * <p>
+ * The history is stored in a text file, one test per line, as the expected duration in
+ * nanoseconds followed by a tab and the display name of the test. Each new measurement is
+ * averaged with the expected duration, so that one slow run does not throw off the schedule.
+ * The history is only an optimization: a file that cannot be read is treated as an empty
+ * history, and a file that cannot be written is left as it was.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class DurationHistory {
+
+    /**
+     * The file the history is stored in.
+     */
+    private final Path file;
+
+    /**
+     * The expected duration of each test in nanoseconds, keyed by the display name of the test.
+     */
+    private final Map<String, Long> durations;
+
+    /**
+     * Loads the history from a file. If the file does not exist or cannot be read,
+     * the history starts out empty.
+     *
+     * @param file the file the history is stored in
+     */
+    DurationHistory(Path file) {
+        this.file = file;
+        this.durations = new ConcurrentHashMap<>();
+
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    this.durations.put(line.substring(tab + 1), Long.parseLong(line.substring(0, tab)));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            this.durations.clear();
+        }
+    }
+
+    /**
+     * Returns the expected duration of a test.
+     *
+     * @param testName the display name of the test
+     * @return the expected duration in nanoseconds, or -1 if the test has never run
+     */
+    long expectedNanos(String testName) {
+        return this.durations.getOrDefault(testName, -1L);
+    }
+
+    /**
+     * Returns the average expected duration of every test in the history.
+     *
+     * @return the average expected duration in nanoseconds, or -1 if the history is empty
+     */
+    long averageNanos() {
+        Collection<Long> values = this.durations.values();
+        return values.isEmpty() ? -1 : (long) values.stream().mapToLong(Long::longValue).average().orElse(0);
+    }
+
+    /**
+     * Records how long a test took.
+     *
+     * @param testName  the display name of the test
+     * @param wallNanos the wall-clock time the test took, in nanoseconds
+     */
+    void record(String testName, long wallNanos) {
+        if (wallNanos >= 0) {
+            this.durations.merge(testName, wallNanos, (expected, measured) -> (expected + measured) / 2);
+        }
+    }
+
+    /**
+     * Records that a test took at least a certain amount of time, because it was stopped before
+     * it finished. The expected duration of the test never goes down.
+     *
+     * @param testName  the display name of the test
+     * @param wallNanos the wall-clock time the test ran for before it was stopped, in nanoseconds
+     */
+    void recordAtLeast(String testName, long wallNanos) {
+        if (wallNanos >= 0) {
+            this.durations.merge(testName, wallNanos, Math::max);
+        }
+    }
+
+    /**
+     * Writes the history to its file, replacing the file atomically.
+     */
+    void save() {
+        List<String> lines = new ArrayList<>(this.durations.size());
+        this.durations.forEach((testName, nanos) -> lines.add(nanos + "\t" + testName));
+
+        Path temp = null;
+        try {
+            Path directory = this.file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, this.file.getFileName().toString(), ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+}
@@ -1,40 +1,112 @@
 package edu.purdue.cs.percolator;
 
 import com.github.tkutcher.jgrade.Grader;
-import com.github.tkutcher.jgrade.gradescope.GradescopeJsonFormatter;
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
 /**
  * The {@link GradescopeFormatter} class formats grading results
  * and prints them out so Gradescope can assign grades and display
  * the results.
+ * <p>
+ * The results are written in the
+ * <a href="https://gradescope-autograders.readthedocs.io/en/latest/specs/">Gradescope JSON format</a>
+ * one test case at a time, straight to the output stream, so the whole document is never
+ * held in memory.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.2
+ * @version 1.3
  * @since 1.2
  */
 class GradescopeFormatter implements OutputFormatter {
 
     /**
-     * Inner {@link GradescopeJsonFormatter} object to handle JSON formatting.
+     * The number of spaces to indent the JSON output by.
      */
-    private final GradescopeJsonFormatter formatter;
+    private static final int INDENT = 2;
 
     /**
-     * Creates a new {@link GradescopeFormatter}.
+     * Whether the JSON output is written on a single line without indentation.
+     */
+    private final boolean compact;
+
+    /**
+     * Creates a new {@link GradescopeFormatter} with indented output.
      */
     GradescopeFormatter() {
-        this.formatter = new GradescopeJsonFormatter();
-        this.formatter.setPrettyPrint(2);
+        this(false);
+    }
+
+    /**
+     * Creates a new {@link GradescopeFormatter}.
+     *
+     * @param compact whether the JSON output is written on a single line without indentation
+     */
+    GradescopeFormatter(boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * Returns whether the JSON output is written on a single line without indentation.
+     *
+     * @return true if the output is compact, false if it is indented
+     */
+    boolean isCompact() {
+        return this.compact;
     }
 
     /**
      * Prints the contents of the {@link Grader} object
-     * to standard out.
+     * to the results stream.
      *
      * @param grader the test case grader
+     * @param out    the stream for the grading results
+     * @param err    unused, since Gradescope does not have a separate grading report
      */
-    public void printGradingResults(Grader grader) {
-        System.out.println(this.formatter.format(grader));
+    public void printGradingResults(Grader grader, PrintStream out, PrintStream err) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+        try {
+            JsonWriter json = new JsonWriter(writer, this.compact ? 0 : INDENT);
+            json.beginObject();
+            if (grader.hasScore()) {
+                json.name("score").value(grader.getScore());
+            }
+            if (grader.hasMaxScore()) {
+                json.name("max_score").value(grader.getMaxScore());
+            }
+            if (grader.hasExecutionTime()) {
+                json.name("execution_time").value(grader.getExecutionTime());
+            }
+            if (grader.hasOutput()) {
+                json.name("output").value(grader.getOutput());
+            }
+            json.name("visibility").value(GradedTestResult.VISIBLE);
+
+            json.name("tests").beginArray();
+            for (GradedTestResult result : grader.getGradedTestResults()) {
+                json.beginObject()
+                    .name("name").value(result.getName())
+                    .name("number").value(result.getNumber())
+                    .name("score").value(result.getScore())
+                    .name("max_score").value(result.getPoints())
+                    .name("output").value(result.getOutput())
+                    .name("visibility").value(result.getVisibility())
+                    .endObject();
+            }
+            json.endArray();
+            json.endObject();
+
+            writer.write(System.lineSeparator());
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
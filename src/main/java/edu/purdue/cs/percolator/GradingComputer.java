@@ -0,0 +1,159 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.Ignore;
+import org.junit.runner.Computer;
+import org.junit.runner.RunWith;
+import org.junit.runner.Runner;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * The {@link GradingComputer} class is a {@link Computer} that runs plain JUnit 4 test suites
+ * with a {@link GradingRunner}, so that the limits set on the {@link AutoGrader} and the
+ * {@link TestCase} annotation are enforced. Test suites that use a custom runner
+ * (through {@link RunWith}), JUnit 3 test suites and ignored test suites are run
+ * as usual. If there is a {@link TestScheduler}, it decides the order the test suites
+ * and their tests start in.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+class GradingComputer extends Computer {
+
+    /**
+     * The time limit for tests without their own time limit, in milliseconds,
+     * or 0 if there is no time limit.
+     */
+    private final long defaultTimeoutMillis;
+
+    /**
+     * The allocation limit for tests without their own allocation limit, in bytes,
+     * or 0 if there is no allocation limit.
+     */
+    private final long defaultMaxAllocatedBytes;
+
+    /**
+     * The scheduler that orders the tests and keeps track of the time budget,
+     * or {@code null} if the tests run in their usual order without a time budget.
+     */
+    private final TestScheduler scheduler;
+
+    /**
+     * Creates a new {@link GradingComputer} that runs the tests in their usual order.
+     *
+     * @param defaultTimeoutMillis     the time limit for tests without their own time limit,
+     *                                 or 0 for no time limit
+     * @param defaultMaxAllocatedBytes the allocation limit for tests without their own allocation
+     *                                 limit, or 0 for no allocation limit
+     */
+    GradingComputer(long defaultTimeoutMillis, long defaultMaxAllocatedBytes) {
+        this(defaultTimeoutMillis, defaultMaxAllocatedBytes, null);
+    }
+
+    /**
+     * Creates a new {@link GradingComputer}.
+     *
+     * @param defaultTimeoutMillis     the time limit for tests without their own time limit,
+     *                                 or 0 for no time limit
+     * @param defaultMaxAllocatedBytes the allocation limit for tests without their own allocation
+     *                                 limit, or 0 for no allocation limit
+     * @param scheduler                the scheduler that orders the tests and keeps track of the
+     *                                 time budget, or {@code null} for none
+     */
+    GradingComputer(long defaultTimeoutMillis, long defaultMaxAllocatedBytes, TestScheduler scheduler) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.defaultMaxAllocatedBytes = defaultMaxAllocatedBytes;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Creates the runner for all of the test suites. If there is a {@link TestScheduler},
+     * the test suites start in the order it decides.
+     *
+     * @param builder the builder used to create the test suite runners
+     * @param classes the test suite classes
+     * @return the runner for all of the test suites
+     * @throws InitializationError if the suite runner cannot be created
+     */
+    @Override
+    public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+        Runner suite = super.getSuite(builder, classes);
+        if (suite instanceof ParentRunner) {
+            ParentRunner<?> parent = (ParentRunner<?>) suite;
+            parent.setScheduler(inOrder(parent, TestScheduler.SERIAL));
+        }
+        return suite;
+    }
+
+    /**
+     * Creates the runner for a single test suite.
+     *
+     * @param builder   the builder used to create the test suite runner
+     * @param testClass the test suite class
+     * @return the runner for the test suite
+     * @throws Throwable if the runner cannot be created
+     */
+    @Override
+    protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+        if (usesDefaultRunner(testClass)) {
+            return new GradingRunner(testClass, this.defaultTimeoutMillis, this.defaultMaxAllocatedBytes,
+                this.scheduler);
+        }
+        return super.getRunner(builder, testClass);
+    }
+
+    /**
+     * Wraps the scheduler of a runner so that its children start in the order decided by
+     * the {@link TestScheduler}.
+     *
+     * @param runner    the runner whose children are scheduled
+     * @param scheduler the scheduler that runs the children
+     * @return the scheduler that starts the children in order, or the given scheduler
+     * if there is no {@link TestScheduler}
+     */
+    RunnerScheduler inOrder(ParentRunner<?> runner, RunnerScheduler scheduler) {
+        return this.scheduler == null ? scheduler : this.scheduler.inOrder(runner, scheduler);
+    }
+
+    /**
+     * Wraps the scheduler of a runner that runs its children on several threads, so that the
+     * children the {@link TestScheduler} expects to take the longest start first.
+     *
+     * @param runner    the runner whose children are scheduled
+     * @param scheduler the scheduler that runs the children
+     * @return the scheduler that starts the children longest first, or the given scheduler
+     * if there is no {@link TestScheduler}
+     */
+    RunnerScheduler longestFirst(ParentRunner<?> runner, RunnerScheduler scheduler) {
+        return this.scheduler == null ? scheduler : this.scheduler.longestFirst(runner, scheduler);
+    }
+
+    /**
+     * Determines whether JUnit would run a test suite with its default JUnit 4 runner.
+     *
+     * @param testClass the test suite class
+     * @return true if the test suite is a plain JUnit 4 test suite, false otherwise
+     */
+    private static boolean usesDefaultRunner(Class<?> testClass) {
+        if (testClass.isAnnotationPresent(Ignore.class) || junit.framework.Test.class.isAssignableFrom(testClass)) {
+            return false;
+        }
+
+        for (Class<?> c = testClass; c != null; c = c.getEnclosingClass()) {
+            if (c.isAnnotationPresent(RunWith.class)) {
+                return false;
+            }
+        }
+
+        try {
+            testClass.getMethod("suite");
+            return false;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,476 @@
+package edu.purdue.cs.percolator;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@link GradingDaemon} class contains builder methods to run an {@link AutoGrader} as a
+ * long-lived grading worker. Keeping the JVM running between submissions means that JVM
+ * startup and loading the grading framework are only paid once, which is most of the
+ * turnaround time for small assignments.
+ * <p>
+ * Each job grades one submission directory, with the same isolation as
+ * {@link AutoGrader#runBatch}: the student classes and the test suites are loaded
+ * into a new class loader for every job. Jobs can be sent in two ways:
+ * <ul>
+ *     <li>
+ *         <b>Socket:</b> connect to the daemon on {@code localhost} and send the path of the
+ *         submission directory on a single line. The daemon replies with the grading results.
+ *         If the grading platform prints a separate grading report (e.g., Vocareum), it follows
+ *         the results after a line containing {@value GradingDaemon#REPORT_SEPARATOR}.
+ *         The connection is closed once the job is done. If the path is not received within the
+ *         read timeout (see {@link GradingDaemon#withReadTimeout}), the daemon replies with an error
+ *         and closes the connection, so an idle client cannot hold on to a worker.
+ *     </li>
+ *     <li>
+ *         <b>Spool directory:</b> create a file named {@code <job>.job} in the spool directory that
+ *         contains the path of the submission directory. To avoid the daemon reading a partially
+ *         written file, write it under another name first and then rename it. While the job is graded,
+ *         the job file is renamed to {@code <job>.running}, so each job is only graded once. The grading
+ *         results are written to {@code <job>.out} (and {@code <job>.err} for the grading report), and
+ *         the job file is renamed to {@code <job>.done}. If the job could not be graded, the error is
+ *         written to {@code <job>.failed} instead.
+ *     </li>
+ * </ul>
+ * <p>
+ * The socket only listens on the loopback interface, since anyone who can connect can make
+ * the daemon run code from any directory it can read.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public final class GradingDaemon {
+
+    /**
+     * The line separating the grading results from the grading report in a socket reply.
+     */
+    static final String REPORT_SEPARATOR = "==== REPORT ====";
+
+    /**
+     * The extension of job files in the spool directory.
+     */
+    private static final String JOB_EXTENSION = ".job";
+
+    /**
+     * The extension of job files in the spool directory that are being graded.
+     */
+    private static final String RUNNING_EXTENSION = ".running";
+
+    /**
+     * The default time to wait for the submission directory on a connection, in milliseconds.
+     */
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * The grader used to grade each job.
+     */
+    private AutoGrader grader;
+
+    /**
+     * The port to listen on, 0 for any free port, or -1 to not listen on a socket.
+     */
+    private int port;
+
+    /**
+     * The spool directory to watch for jobs, or {@code null} to not watch a directory.
+     */
+    private Path spoolDirectory;
+
+    /**
+     * The number of jobs to grade at once.
+     */
+    private int workers;
+
+    /**
+     * The time to wait for the submission directory on a connection, in milliseconds.
+     */
+    private int readTimeoutMillis;
+
+    /**
+     * The thread pool that grades the jobs.
+     */
+    private ExecutorService workerPool;
+
+    /**
+     * The socket the daemon listens on, if any.
+     */
+    private ServerSocket serverSocket;
+
+    /**
+     * The watch service for the spool directory, if any.
+     */
+    private WatchService watchService;
+
+    /**
+     * Private default constructor so objects are created using the {@link GradingDaemon#serve} method.
+     */
+    private GradingDaemon() {
+    }
+
+    /**
+     * Creates a new {@link GradingDaemon} that grades jobs with the given {@link AutoGrader}.
+     * By default, the daemon neither listens on a socket nor watches a spool directory, so
+     * at least one of {@link GradingDaemon#onPort} and {@link GradingDaemon#watching} must be used.
+     * One job is graded at a time, and connections must send the submission directory
+     * within 10 seconds.
+     *
+     * @param grader the grader used to grade each job
+     * @return a new {@link GradingDaemon} object
+     */
+    public static GradingDaemon serve(AutoGrader grader) {
+        if (grader == null) {
+            throw new IllegalArgumentException("grader parameter cannot be null.");
+        }
+
+        GradingDaemon daemon = new GradingDaemon();
+        daemon.grader = grader;
+        daemon.port = -1;
+        daemon.spoolDirectory = null;
+        daemon.withWorkers(1);
+        daemon.withReadTimeout(DEFAULT_READ_TIMEOUT_MILLIS);
+
+        return daemon;
+    }
+
+    /**
+     * Specifies the port on {@code localhost} to listen for jobs on.
+     *
+     * @param port the port to listen on, or 0 to pick any free port
+     * @return the {@link GradingDaemon} with the new port
+     */
+    public GradingDaemon onPort(int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be between 0 and 65535.");
+        }
+
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Specifies the spool directory to watch for job files.
+     *
+     * @param spoolDirectory the directory to watch for job files
+     * @return the {@link GradingDaemon} with the new spool directory
+     */
+    public GradingDaemon watching(String spoolDirectory) {
+        File dir = new File(spoolDirectory);
+        if (!dir.exists() || !dir.canWrite() || !dir.isDirectory()) {
+            throw new IllegalArgumentException("spoolDirectory parameter must specify a valid directory that is writable.");
+        }
+
+        this.spoolDirectory = dir.toPath().toAbsolutePath();
+        return this;
+    }
+
+    /**
+     * Specifies the number of jobs to grade at once.
+     *
+     * @param workers the number of jobs to grade at once
+     * @return the {@link GradingDaemon} with the new number of workers
+     */
+    public GradingDaemon withWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive.");
+        }
+
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * Specifies how long to wait for a connection to send the submission directory.
+     *
+     * @param readTimeoutMillis the time to wait for the submission directory, in milliseconds
+     * @return the {@link GradingDaemon} with the new read timeout
+     */
+    public GradingDaemon withReadTimeout(int readTimeoutMillis) {
+        if (readTimeoutMillis < 1) {
+            throw new IllegalArgumentException("readTimeoutMillis must be positive.");
+        }
+
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Starts the daemon. Jobs are accepted on background threads, which keep the JVM
+     * running until {@link GradingDaemon#stop} is called.
+     *
+     * @return the running {@link GradingDaemon}
+     */
+    public synchronized GradingDaemon start() {
+        if (this.workerPool != null) {
+            throw new IllegalStateException("The daemon is already running.");
+        }
+        if (this.port < 0 && this.spoolDirectory == null) {
+            throw new IllegalStateException("The daemon needs a port or a spool directory to accept jobs from.");
+        }
+
+        this.workerPool = Executors.newFixedThreadPool(this.workers);
+        try {
+            if (this.port >= 0) {
+                this.serverSocket = new ServerSocket(this.port, 50, InetAddress.getLoopbackAddress());
+                new Thread(this::acceptConnections, "percolator-daemon-socket").start();
+            }
+            if (this.spoolDirectory != null) {
+                this.watchService = this.spoolDirectory.getFileSystem().newWatchService();
+                this.spoolDirectory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE);
+                new Thread(this::watchSpoolDirectory, "percolator-daemon-spool").start();
+            }
+        } catch (IOException e) {
+            stop();
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns the port the daemon is listening on. Useful when the daemon
+     * was told to pick any free port.
+     *
+     * @return the port the daemon is listening on, or -1 if it is not listening on a socket
+     */
+    public synchronized int getPort() {
+        return this.serverSocket != null ? this.serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * Stops accepting new jobs. Jobs that have already been accepted are still graded.
+     */
+    public synchronized void stop() {
+        try {
+            if (this.serverSocket != null) {
+                this.serverSocket.close();
+            }
+            if (this.watchService != null) {
+                this.watchService.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (this.workerPool != null) {
+                this.workerPool.shutdown();
+            }
+            this.serverSocket = null;
+            this.watchService = null;
+            this.workerPool = null;
+        }
+    }
+
+    /**
+     * Accepts connections on the socket until the daemon is stopped.
+     */
+    private void acceptConnections() {
+        ServerSocket socket;
+        ExecutorService pool;
+        synchronized (this) {
+            socket = this.serverSocket;
+            pool = this.workerPool;
+        }
+
+        while (!socket.isClosed()) {
+            try {
+                Socket connection = socket.accept();
+                pool.submit(() -> gradeConnection(connection));
+            } catch (SocketException e) {
+                // The socket was closed by stop()
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Grades the job sent over a connection and replies with the results.
+     * If the connection does not send the submission directory in time, replies with an error.
+     *
+     * @param connection the connection the job was sent over
+     */
+    private void gradeConnection(Socket connection) {
+        try (connection) {
+            connection.setSoTimeout(this.readTimeoutMillis);
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)
+            );
+            OutputStream reply = connection.getOutputStream();
+            String submission;
+            try {
+                submission = reader.readLine();
+            } catch (SocketTimeoutException e) {
+                reply.write(("ERROR: No submission directory was received within " + this.readTimeoutMillis
+                    + " ms.\n").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            try (PrintStream out = new PrintStream(reply, false, StandardCharsets.UTF_8.name());
+                 PrintStream err = new PrintStream(report, false, StandardCharsets.UTF_8.name())) {
+                try {
+                    gradeSubmission(submission, out, err);
+                } catch (RuntimeException e) {
+                    out.println("ERROR: " + e.getMessage());
+                }
+
+                if (report.size() > 0) {
+                    out.println(REPORT_SEPARATOR);
+                    out.print(report.toString(StandardCharsets.UTF_8.name()));
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Watches the spool directory for job files until the daemon is stopped.
+     * Job files that already exist when the daemon starts are graded first. If the watch service
+     * loses track of events, the spool directory is scanned again.
+     */
+    private void watchSpoolDirectory() {
+        WatchService watcher;
+        ExecutorService pool;
+        synchronized (this) {
+            watcher = this.watchService;
+            pool = this.workerPool;
+        }
+
+        submitWaitingJobs(pool);
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        submitWaitingJobs(pool);
+                    } else if (event.context() instanceof Path && event.context().toString().endsWith(JOB_EXTENSION)) {
+                        Path job = this.spoolDirectory.resolve((Path) event.context());
+                        pool.submit(() -> gradeJobFile(job));
+                    }
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // The watch service was closed by stop()
+        }
+    }
+
+    /**
+     * Submits every job file in the spool directory to be graded.
+     * A job that has already been submitted is skipped when it is claimed (see {@link GradingDaemon#gradeJobFile}).
+     *
+     * @param pool the thread pool that grades the jobs
+     */
+    private void submitWaitingJobs(ExecutorService pool) {
+        try (DirectoryStream<Path> jobs = Files.newDirectoryStream(this.spoolDirectory, "*" + JOB_EXTENSION)) {
+            for (Path job : jobs) {
+                pool.submit(() -> gradeJobFile(job));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Grades the job in a job file and writes the results next to it. The job is first claimed
+     * by renaming the job file, so a job that was found both by the watch service and by
+     * scanning the spool directory is only graded once.
+     *
+     * @param job the job file
+     */
+    private void gradeJobFile(Path job) {
+        String fileName = job.getFileName().toString();
+        String name = fileName.substring(0, fileName.length() - JOB_EXTENSION.length());
+        Path running = this.spoolDirectory.resolve(name + RUNNING_EXTENSION);
+        Path results = this.spoolDirectory.resolve(name + ".out");
+        Path report = this.spoolDirectory.resolve(name + ".err");
+
+        try {
+            Files.move(job, running, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // The job has already been claimed
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            List<String> lines = Files.readAllLines(running, StandardCharsets.UTF_8);
+            String submission = lines.isEmpty() ? null : lines.get(0);
+
+            Path resultsTemp = this.spoolDirectory.resolve(name + ".out.tmp");
+            ByteArrayOutputStream reportBuffer = new ByteArrayOutputStream();
+            try (PrintStream out = new PrintStream(new FileOutputStream(resultsTemp.toFile()));
+                 PrintStream err = new PrintStream(reportBuffer)) {
+                gradeSubmission(submission, out, err);
+            }
+
+            if (reportBuffer.size() > 0) {
+                Path reportTemp = this.spoolDirectory.resolve(name + ".err.tmp");
+                Files.write(reportTemp, reportBuffer.toByteArray());
+                Files.move(reportTemp, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(resultsTemp, results, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(running, this.spoolDirectory.resolve(name + ".done"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.write(this.spoolDirectory.resolve(name + ".failed"),
+                    String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+                Files.deleteIfExists(running);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Grades a submission with the {@link AutoGrader}.
+     *
+     * @param submission the path of the submission directory
+     * @param out        the stream for the grading results
+     * @param err        the stream for the grading report
+     */
+    private void gradeSubmission(String submission, PrintStream out, PrintStream err) {
+        if (submission == null || submission.isBlank()) {
+            throw new IllegalArgumentException("The job did not contain a submission directory.");
+        }
+
+        File dir = new File(submission.trim());
+        if (!dir.exists() || !dir.canExecute() || !dir.isDirectory()) {
+            throw new IllegalArgumentException("The submission directory must be a valid directory that is readable.");
+        }
+
+        this.grader.gradeSubmission(dir, out, err);
+    }
+
+}
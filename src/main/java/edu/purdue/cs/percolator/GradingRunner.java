@@ -0,0 +1,126 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.Statement;
+
+/**
+ * The {@link GradingRunner} class runs a JUnit 4 test suite and enforces
+ * the time and allocation limits of each {@link TestCase} with a {@link WatchdogStatement}.
+ * If there is a {@link TestScheduler}, it decides the order the tests start in and
+ * which tests are not run at all because the time budget ran out.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class GradingRunner extends BlockJUnit4ClassRunner {
+
+    /**
+     * The time limit for tests without their own time limit, in milliseconds,
+     * or 0 if there is no time limit.
+     */
+    private final long defaultTimeoutMillis;
+
+    /**
+     * The allocation limit for tests without their own allocation limit, in bytes,
+     * or 0 if there is no allocation limit.
+     */
+    private final long defaultMaxAllocatedBytes;
+
+    /**
+     * The scheduler that orders the tests and keeps track of the time budget,
+     * or {@code null} if the tests run in their usual order without a time budget.
+     */
+    private final TestScheduler scheduler;
+
+    /**
+     * Creates a new {@link GradingRunner}.
+     *
+     * @param testClass                the test suite class
+     * @param defaultTimeoutMillis     the time limit for tests without their own time limit,
+     *                                 or 0 for no time limit
+     * @param defaultMaxAllocatedBytes the allocation limit for tests without their own allocation
+     *                                 limit, or 0 for no allocation limit
+     * @param scheduler                the scheduler that orders the tests and keeps track of the time
+     *                                 budget, or {@code null} for none
+     * @throws InitializationError if the test suite is malformed
+     */
+    GradingRunner(Class<?> testClass, long defaultTimeoutMillis, long defaultMaxAllocatedBytes,
+                  TestScheduler scheduler) throws InitializationError {
+        super(testClass);
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.defaultMaxAllocatedBytes = defaultMaxAllocatedBytes;
+        this.scheduler = scheduler;
+        if (scheduler != null) {
+            super.setScheduler(scheduler.inOrder(this, TestScheduler.SERIAL));
+        }
+    }
+
+    /**
+     * Runs a test, unless the time budget has run out or the test is expected to take longer
+     * than the time that is left. A test that is not run is reported as failed with the message
+     * {@value TestScheduler#NOT_RUN_MESSAGE}.
+     *
+     * @param method   the test method
+     * @param notifier the notifier to report the result of the test to
+     */
+    @Override
+    protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+        Description description = describeChild(method);
+        if (this.scheduler == null || isIgnored(method) || this.scheduler.tryStart(description.getDisplayName())) {
+            super.runChild(method, notifier);
+            return;
+        }
+
+        notifier.fireTestStarted(description);
+        notifier.fireTestFailure(new Failure(description, new AssertionError(TestScheduler.NOT_RUN_MESSAGE)));
+        notifier.fireTestFinished(description);
+    }
+
+    /**
+     * Wraps the whole test in a {@link WatchdogStatement} if the test has a time limit
+     * or an allocation limit, so that the limits also apply to creating the test suite instance,
+     * the {@link org.junit.Before} and {@link org.junit.After} methods, and any rules.
+     * The test suite instance is only created once the test is running under the watchdog.
+     * A time limit set with {@link org.junit.Test#timeout()} is still enforced as well.
+     * If there is a time budget, no test may run past the end of the budget.
+     *
+     * @param method the test method
+     * @return the statement that runs the test within its limits
+     */
+    @Override
+    protected Statement methodBlock(FrameworkMethod method) {
+
+        long timeoutMillis = this.defaultTimeoutMillis;
+        long maxAllocatedBytes = this.defaultMaxAllocatedBytes;
+        TestCase testCase = method.getAnnotation(TestCase.class);
+        if (testCase != null && testCase.timeoutMillis() > 0) {
+            timeoutMillis = testCase.timeoutMillis();
+        }
+        if (testCase != null && testCase.maxAllocatedBytes() > 0) {
+            maxAllocatedBytes = testCase.maxAllocatedBytes();
+        }
+        if (this.scheduler != null) {
+            timeoutMillis = this.scheduler.limitTimeout(describeChild(method).getDisplayName(), timeoutMillis);
+        }
+
+        if (timeoutMillis == 0 && maxAllocatedBytes == 0) {
+            return super.methodBlock(method);
+        }
+
+        // Creating the statement also creates the test suite instance, so it happens on the watched thread
+        Statement test = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                GradingRunner.super.methodBlock(method).evaluate();
+            }
+        };
+        return new WatchdogStatement(test, describeChild(method).getDisplayName(), timeoutMillis, maxAllocatedBytes);
+    }
+
+}
@@ -0,0 +1,301 @@
+package edu.purdue.cs.percolator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The {@link JsonWriter} class writes a JSON document to a {@link Writer} one value at a time,
+ * so that large documents never have to be held in memory. The output is either compact or
+ * indented, and strings and numbers are written the same way as by the {@code org.json} library
+ * used by JGrade.
+ * <p>
+ * The writer does not check that the document is well formed; the caller is responsible for
+ * calling {@link #name(String)} before each value in an object.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class JsonWriter {
+
+    /**
+     * The writer for the JSON document.
+     */
+    private final Writer out;
+
+    /**
+     * The number of spaces to indent each level by, or 0 for compact output.
+     */
+    private final int indent;
+
+    /**
+     * Whether each open object or array already has an element, innermost first.
+     */
+    private final Deque<Boolean> hasElements;
+
+    /**
+     * Whether a name has just been written, so the next value belongs to it.
+     */
+    private boolean afterName;
+
+    /**
+     * Creates a new {@link JsonWriter}.
+     *
+     * @param out    the writer for the JSON document
+     * @param indent the number of spaces to indent each level by, or 0 for compact output
+     */
+    JsonWriter(Writer out, int indent) {
+        this.out = out;
+        this.indent = indent;
+        this.hasElements = new ArrayDeque<>();
+    }
+
+    /**
+     * Starts a new object.
+     *
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    /**
+     * Starts a new array.
+     *
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Writes the name of the next value in the current object.
+     *
+     * @param name the name of the value
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter name(String name) throws IOException {
+        beforeElement();
+        quote(name);
+        this.out.write(this.indent > 0 ? ": " : ":");
+        this.afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter value(String value) throws IOException {
+        beforeValue();
+        if (value == null) {
+            this.out.write("null");
+        } else {
+            quote(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number value. Whole numbers are written without a fractional part.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException              if the document cannot be written
+     * @throws IllegalArgumentException if the value is not finite
+     */
+    JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("value must be finite.");
+        }
+
+        beforeValue();
+        String number = Double.toString(value);
+        if (number.indexOf('.') > 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+            int end = number.length();
+            while (number.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (number.charAt(end - 1) == '.') {
+                end--;
+            }
+            number = number.substring(0, end);
+        }
+        this.out.write(number);
+        return this;
+    }
+
+    /**
+     * Writes a whole number value.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter value(long value) throws IOException {
+        beforeValue();
+        this.out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        this.out.write(Boolean.toString(value));
+        return this;
+    }
+
+    /**
+     * Starts a new object or array.
+     *
+     * @param bracket the opening bracket
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    private JsonWriter open(char bracket) throws IOException {
+        beforeValue();
+        this.out.write(bracket);
+        this.hasElements.push(false);
+        return this;
+    }
+
+    /**
+     * Ends the current object or array.
+     *
+     * @param bracket the closing bracket
+     * @return this writer
+     * @throws IOException if the document cannot be written
+     */
+    private JsonWriter close(char bracket) throws IOException {
+        if (this.hasElements.pop()) {
+            newline();
+        }
+        this.out.write(bracket);
+        return this;
+    }
+
+    /**
+     * Prepares to write a value, which is either the value of a name or an element of an array.
+     *
+     * @throws IOException if the document cannot be written
+     */
+    private void beforeValue() throws IOException {
+        if (this.afterName) {
+            this.afterName = false;
+        } else if (!this.hasElements.isEmpty()) {
+            beforeElement();
+        }
+    }
+
+    /**
+     * Writes the separator before a new element of the current object or array.
+     *
+     * @throws IOException if the document cannot be written
+     */
+    private void beforeElement() throws IOException {
+        if (this.hasElements.pop()) {
+            this.out.write(',');
+        }
+        this.hasElements.push(true);
+        newline();
+    }
+
+    /**
+     * Starts a new line at the current depth, if the output is indented.
+     *
+     * @throws IOException if the document cannot be written
+     */
+    private void newline() throws IOException {
+        if (this.indent > 0) {
+            this.out.write('\n');
+            for (int i = 0; i < this.indent * this.hasElements.size(); i++) {
+                this.out.write(' ');
+            }
+        }
+    }
+
+    /**
+     * Writes a quoted and escaped string, the same way as {@code JSONObject.quote}.
+     *
+     * @param s the string to write
+     * @throws IOException if the document cannot be written
+     */
+    private void quote(String s) throws IOException {
+        this.out.write('"');
+        char previous = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                case '"':
+                    this.out.write('\\');
+                    this.out.write(c);
+                    break;
+                case '/':
+                    if (previous == '<') {
+                        this.out.write('\\');
+                    }
+                    this.out.write(c);
+                    break;
+                case '\b':
+                    this.out.write("\\b");
+                    break;
+                case '\t':
+                    this.out.write("\\t");
+                    break;
+                case '\n':
+                    this.out.write("\\n");
+                    break;
+                case '\f':
+                    this.out.write("\\f");
+                    break;
+                case '\r':
+                    this.out.write("\\r");
+                    break;
+                default:
+                    if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+                        this.out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        this.out.write(c);
+                    }
+            }
+            previous = c;
+        }
+        this.out.write('"');
+    }
+
+}
@@ -2,21 +2,36 @@ package edu.purdue.cs.percolator;
 
 import com.github.tkutcher.jgrade.Grader;
 
+import java.io.PrintStream;
+
 /**
  * The {@link OutputFormatter} interface standardizes formatting output for all
  * grading platforms.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.2
+ * @version 1.3
  * @since 1.2
  */
 interface OutputFormatter {
 
     /**
-     * Prints out the contents of the {@link Grader} object.
+     * Prints out the contents of the {@link Grader} object
+     * to standard out/error.
+     *
+     * @param grader the test case grader
+     */
+    default void printGradingResults(Grader grader) {
+        printGradingResults(grader, System.out, System.err);
+    }
+
+    /**
+     * Prints out the contents of the {@link Grader} object
+     * to the given streams.
      *
      * @param grader the test case grader
+     * @param out    the stream for the grading results
+     * @param err    the stream for the grading report, if the platform uses one
      */
-    void printGradingResults(Grader grader);
+    void printGradingResults(Grader grader, PrintStream out, PrintStream err);
 
 }
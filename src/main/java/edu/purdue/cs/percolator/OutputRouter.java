@@ -0,0 +1,126 @@
+package edu.purdue.cs.percolator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * The {@link OutputRouter} class replaces {@link System#out} while tests are running and
+ * routes everything written to it to the {@link CapturedOutput} of the test that the
+ * writing thread belongs to.
+ * <p>
+ * A thread belongs to a test if the test was started on that thread, or if the thread was
+ * created by a thread that belongs to the test. Threads that do not belong to a test write
+ * to the original {@link System#out}. This allows several tests to run at the same time
+ * without mixing their output, and keeps threads spawned by student code from writing
+ * into another test's output.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class OutputRouter extends OutputStream {
+
+    /**
+     * The output of the test that the current thread belongs to, if any.
+     * Threads inherit the output of the thread that created them.
+     */
+    private static final InheritableThreadLocal<CapturedOutput> CURRENT_OUTPUT = new InheritableThreadLocal<>();
+
+    /**
+     * The single router instance installed as {@link System#out}.
+     */
+    private static final OutputRouter INSTANCE = new OutputRouter();
+
+    /**
+     * The {@link System#out} stream from before the router was installed.
+     */
+    private static volatile PrintStream originalOut;
+
+    /**
+     * The number of test runs that are currently using the router.
+     */
+    private static int installCount;
+
+    /**
+     * Private default constructor so only the single instance can be created.
+     */
+    private OutputRouter() {
+    }
+
+    /**
+     * Installs the router as {@link System#out}. Each call must be
+     * paired with a call to {@link OutputRouter#uninstall}.
+     */
+    static synchronized void install() {
+        if (installCount++ == 0) {
+            originalOut = System.out;
+            System.setOut(new PrintStream(INSTANCE, true));
+        }
+    }
+
+    /**
+     * Restores the original {@link System#out} once every
+     * test run using the router has finished.
+     */
+    static synchronized void uninstall() {
+        if (installCount > 0 && --installCount == 0) {
+            System.setOut(originalOut);
+            originalOut = null;
+        }
+    }
+
+    /**
+     * Routes the output of the current thread, and any threads it creates
+     * from now on, to the given {@link CapturedOutput}.
+     *
+     * @param output the output of the test the current thread belongs to
+     */
+    static void routeTo(CapturedOutput output) {
+        CURRENT_OUTPUT.set(output);
+    }
+
+    /**
+     * Stops routing the output of the current thread to a test.
+     */
+    static void clearRoute() {
+        CURRENT_OUTPUT.remove();
+    }
+
+    @Override
+    public void write(int b) {
+        CapturedOutput output = CURRENT_OUTPUT.get();
+        if (output != null) {
+            output.write(b);
+        } else {
+            fallback().write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        CapturedOutput output = CURRENT_OUTPUT.get();
+        if (output != null) {
+            output.write(b, off, len);
+        } else {
+            fallback().write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (CURRENT_OUTPUT.get() == null) {
+            fallback().flush();
+        }
+    }
+
+    /**
+     * Returns the stream for output that does not belong to any test.
+     *
+     * @return the original {@link System#out}
+     */
+    private static PrintStream fallback() {
+        PrintStream out = originalOut;
+        return out != null ? out : System.out;
+    }
+
+}
@@ -0,0 +1,94 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The {@link ShardFilter} class is a {@link Filter} that keeps one shard of a test plan, so that
+ * the tests can be split across several JVMs (see {@link AutoGrader#withShard(int, int, String)}).
+ * <p>
+ * The tests are dealt out to the shards in turn, in the order of the test plan: shard {@code i}
+ * of {@code n} keeps the tests at positions {@code i}, {@code i + n}, {@code i + 2n}, and so on.
+ * Since the test plan is the same in every JVM, every test belongs to exactly one shard, and
+ * neighboring tests (which often take about as long as each other) end up in different shards.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class ShardFilter extends Filter {
+
+    /**
+     * The position of the shard, starting at 0.
+     */
+    private final int index;
+
+    /**
+     * The number of shards.
+     */
+    private final int count;
+
+    /**
+     * The tests that belong to the shard.
+     */
+    private final Set<Description> tests;
+
+    /**
+     * Creates a new {@link ShardFilter}.
+     *
+     * @param plan  the {@link Description} of the whole test plan
+     * @param index the position of the shard, starting at 0
+     * @param count the number of shards
+     */
+    ShardFilter(Description plan, int index, int count) {
+        this.index = index;
+        this.count = count;
+        this.tests = new HashSet<>();
+        addTests(plan, new int[1]);
+    }
+
+    /**
+     * Determines whether a test, or any of the tests in a suite, belongs to the shard.
+     *
+     * @param description the {@link Description} of the test or suite
+     * @return true if the test should run, false otherwise
+     */
+    @Override
+    public boolean shouldRun(Description description) {
+        if (description.isTest()) {
+            return this.tests.contains(description);
+        }
+        return description.getChildren().stream().anyMatch(this::shouldRun);
+    }
+
+    /**
+     * Returns a description of the shard.
+     *
+     * @return a description of the shard
+     */
+    @Override
+    public String describe() {
+        return "shard " + (this.index + 1) + " of " + this.count;
+    }
+
+    /**
+     * Deals out the tests of a test plan to the shards, keeping the tests of this shard.
+     *
+     * @param description the {@link Description} of the test plan
+     * @param position    the position of the next test in the test plan
+     */
+    private void addTests(Description description, int[] position) {
+        if (description.isTest()) {
+            if (position[0]++ % this.count == this.index) {
+                this.tests.add(description);
+            }
+        }
+        for (Description child : description.getChildren()) {
+            addTests(child, position);
+        }
+    }
+
+}
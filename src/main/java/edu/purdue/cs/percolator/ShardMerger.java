@@ -0,0 +1,64 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.Grader;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link ShardMerger} class combines the results of an assignment graded in shards
+ * (see {@link AutoGrader#withShard(int, int, String)}) into one set of grading results.
+ * <p>
+ * Each shard writes the whole test plan along with the unscaled results of its own tests, so
+ * the results are merged in test plan order and scaled to the maximum score only once, giving
+ * the same results as grading every test in one JVM. If a shard stopped before all of its tests
+ * finished (e.g., because a test crashed its JVM), the tests that never finished receive a score
+ * of 0, and the results of the other shards are not affected.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public final class ShardMerger {
+
+    /**
+     * Private default constructor so no objects can be created of this type.
+     */
+    private ShardMerger() {
+    }
+
+    /**
+     * Reads the results of every shard and combines them.
+     *
+     * @param shards the result files of the shards
+     * @return the grader with the combined results
+     * @throws UncheckedIOException if a result file cannot be read
+     */
+    static Grader merge(List<File> shards) {
+        return CheckpointRecovery.recover(shards);
+    }
+
+    /**
+     * Merges the results of every shard and prints them out.
+     * Can be used via the command line once every shard has finished.
+     * Takes the grading platform, either {@code gradescope} or {@code vocareum},
+     * followed by the paths of the result files of the shards.
+     *
+     * @param args the grading platform followed by the result files of the shards
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || !(args[0].equals("gradescope") || args[0].equals("vocareum"))) {
+            throw new IllegalArgumentException("ShardMerger takes two or more arguments: " +
+                "(gradescope|vocareum, shard_file...)."
+            );
+        }
+
+        OutputFormatter formatter = args[0].equals("gradescope") ? new GradescopeFormatter() : new VocareumFormatter();
+        List<File> shards = Arrays.stream(args, 1, args.length).map(File::new).collect(Collectors.toList());
+        formatter.printGradingResults(merge(shards));
+    }
+
+}
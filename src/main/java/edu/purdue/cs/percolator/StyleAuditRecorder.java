@@ -0,0 +1,136 @@
+package edu.purdue.cs.percolator;
+
+import com.puppycrawl.tools.checkstyle.DefaultLogger;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.AutomaticBean;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link StyleAuditRecorder} class is a Checkstyle {@link AuditListener} that records the
+ * violations of each file instead of printing them, and hands them to a {@link FileListener}
+ * as soon as the file has been audited. Only the files that are currently being audited are
+ * kept in memory. Violations with the {@code ignore} severity are dropped, the same as
+ * Checkstyle's {@link DefaultLogger} does.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class StyleAuditRecorder implements AuditListener {
+
+    /**
+     * The listener that receives the violations of each file.
+     */
+    private final FileListener listener;
+
+    /**
+     * The violations of the files that are being audited, by the file name reported by Checkstyle.
+     */
+    private final Map<String, List<StyleViolation>> violations;
+
+    /**
+     * The exceptions thrown while auditing the files that are being audited, formatted by a
+     * {@link DefaultLogger}, by the file name reported by Checkstyle.
+     */
+    private final Map<String, List<String>> exceptions;
+
+    /**
+     * Creates a new {@link StyleAuditRecorder}.
+     *
+     * @param listener the listener that receives the violations of each file
+     */
+    StyleAuditRecorder(FileListener listener) {
+        this.listener = listener;
+        this.violations = new LinkedHashMap<>();
+        this.exceptions = new HashMap<>();
+    }
+
+    @Override
+    public void auditStarted(AuditEvent event) {
+    }
+
+    @Override
+    public void auditFinished(AuditEvent event) {
+        // Hand over anything that was reported outside of a file
+        Set<String> fileNames = new LinkedHashSet<>(this.violations.keySet());
+        fileNames.addAll(this.exceptions.keySet());
+        for (String fileName : fileNames) {
+            fileFinished(fileName);
+        }
+    }
+
+    @Override
+    public void fileStarted(AuditEvent event) {
+        this.violations.putIfAbsent(event.getFileName(), new ArrayList<>());
+    }
+
+    @Override
+    public void fileFinished(AuditEvent event) {
+        fileFinished(event.getFileName());
+    }
+
+    @Override
+    public void addError(AuditEvent event) {
+        if (event.getSeverityLevel() != SeverityLevel.IGNORE) {
+            this.violations.computeIfAbsent(event.getFileName(), name -> new ArrayList<>())
+                .add(StyleViolation.of(event));
+        }
+    }
+
+    @Override
+    public void addException(AuditEvent event, Throwable throwable) {
+        // Let Checkstyle format the exception so that the report looks the same as before
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        DefaultLogger logger = new DefaultLogger(
+            OutputStream.nullOutputStream(), AutomaticBean.OutputStreamOptions.CLOSE,
+            text, AutomaticBean.OutputStreamOptions.CLOSE
+        );
+        logger.addException(event, throwable);
+        logger.auditFinished(event);
+        this.exceptions.computeIfAbsent(event.getFileName(), name -> new ArrayList<>())
+            .add(text.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hands the violations of a file to the listener and forgets about them.
+     *
+     * @param fileName the file name reported by Checkstyle
+     */
+    private void fileFinished(String fileName) {
+        List<StyleViolation> fileViolations = this.violations.remove(fileName);
+        List<String> fileExceptions = this.exceptions.remove(fileName);
+        this.listener.fileAudited(fileName, fileViolations == null ? List.of() : fileViolations,
+            fileExceptions == null ? List.of() : fileExceptions);
+    }
+
+    /**
+     * The {@link FileListener} interface receives the violations of each file once it has been audited.
+     */
+    @FunctionalInterface
+    interface FileListener {
+
+        /**
+         * Called when a file has been audited.
+         *
+         * @param fileName   the file name reported by Checkstyle
+         * @param violations the violations of the file, in the order they were reported
+         * @param exceptions the formatted exceptions thrown while auditing the file, in the order
+         *                   they were thrown
+         */
+        void fileAudited(String fileName, List<StyleViolation> violations, List<String> exceptions);
+
+    }
+
+}
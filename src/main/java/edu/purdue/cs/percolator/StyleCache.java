@@ -0,0 +1,165 @@
+package edu.purdue.cs.percolator;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link StyleCache} class stores the code style violations of each audited file on disk,
+ * so that files that have not changed since an earlier submission do not have to be audited again.
+ * <p>
+ * Each entry is stored in its own file, named after a hash of the Checkstyle version, the
+ * policy file, the name of the audited file and its contents. Changing any of them simply
+ * results in a cache miss, so old entries never have to be invalidated. The cache is only an
+ * optimization: entries that cannot be read or written are treated as misses.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class StyleCache {
+
+    /**
+     * The hash algorithm used for the cache keys.
+     */
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * The extension of the cache entry files.
+     */
+    private static final String ENTRY_EXTENSION = ".style";
+
+    /**
+     * The directory that contains the cache entries.
+     */
+    private final Path directory;
+
+    /**
+     * The hash of the Checkstyle version and the policy file, which is part of every key.
+     */
+    private final String policyKey;
+
+    /**
+     * Creates a new {@link StyleCache}.
+     *
+     * @param directory  the directory that contains the cache entries
+     * @param policyHash the hash of the policy file
+     */
+    StyleCache(Path directory, String policyHash) {
+        this.directory = directory;
+        this.policyKey = hash((checkstyleVersion() + '\n' + policyHash).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the cache key of a file.
+     *
+     * @param file     the file to audit
+     * @param fileName the name of the file, as reported by Checkstyle
+     * @return the cache key of the file
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    String keyOf(File file, String fileName) {
+        try {
+            String contentHash = hash(Files.readAllBytes(file.toPath()));
+            return hash((this.policyKey + '\n' + fileName + '\n' + contentHash).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the cached violations of a file.
+     *
+     * @param key the cache key of the file
+     * @return the cached violations, or {@code null} if the file is not in the cache
+     */
+    List<StyleViolation> get(String key) {
+        Path entry = this.directory.resolve(key + ENTRY_EXTENSION);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+
+        try {
+            List<StyleViolation> violations = new ArrayList<>();
+            for (String line : Files.readAllLines(entry, StandardCharsets.UTF_8)) {
+                violations.add(StyleViolation.fromLine(line));
+            }
+            return violations;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the violations of a file in the cache. The entry is written to a temporary
+     * file first and then moved into place, so that a concurrent reader never sees a
+     * partially written entry.
+     *
+     * @param key        the cache key of the file
+     * @param violations the violations of the file
+     */
+    void put(String key, List<StyleViolation> violations) {
+        List<String> lines = new ArrayList<>(violations.size());
+        for (StyleViolation violation : violations) {
+            lines.add(violation.toLine());
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(this.directory, key, ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, this.directory.resolve(key + ENTRY_EXTENSION),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Returns the hexadecimal SHA-256 hash of some data.
+     *
+     * @param data the data to hash
+     * @return the hash of the data
+     */
+    static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(data);
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the version of Checkstyle on the class path.
+     *
+     * @return the version of Checkstyle, or the location it was loaded from if the version is unknown
+     */
+    private static String checkstyleVersion() {
+        String version = Checker.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        return String.valueOf(Checker.class.getProtectionDomain().getCodeSource());
+    }
+
+}
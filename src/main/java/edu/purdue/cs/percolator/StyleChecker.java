@@ -2,25 +2,31 @@ package edu.purdue.cs.percolator;
 
 import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
 import com.puppycrawl.tools.checkstyle.Checker;
-import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
-import com.puppycrawl.tools.checkstyle.DefaultLogger;
-import com.puppycrawl.tools.checkstyle.PropertiesExpander;
-import com.puppycrawl.tools.checkstyle.api.AutomaticBean;
 import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
-import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.utils.CommonUtil;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The {@link StyleChecker} class contains builder methods to create a code style checker
@@ -28,7 +34,7 @@ import java.util.List;
  * <a href="https://checkstyle.sourceforge.io">Checkstyle</a> to audit code style.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.2
+ * @version 1.3
  * @since 1.0
  */
 public final class StyleChecker {
@@ -43,6 +49,11 @@ public final class StyleChecker {
      */
     private final static String CHECK_FAIL_MESSAGE = "Code style check failed unexpectedly. Please contact an instructor.";
 
+    /**
+     * The number of files each thread takes at a time when auditing on several threads.
+     */
+    private static final int FILES_PER_GROUP = 8;
+
     /**
      * The directory that contains the files to audit.
      */
@@ -54,9 +65,14 @@ public final class StyleChecker {
     private List<File> files;
 
     /**
-     * The configuration created from a Checkstyle configuration file.
+     * The Checkstyle configuration to enforce.
+     */
+    private StylePolicy policy;
+
+    /**
+     * The default maximum number of messages to report for each check.
      */
-    private Configuration configuration;
+    static final int DEFAULT_MESSAGE_LIMIT = 100;
 
     /**
      * The maximum score for the code style check.
@@ -68,6 +84,26 @@ public final class StyleChecker {
      */
     private double deduction;
 
+    /**
+     * The amount to deduct from the score per code style infraction, by check.
+     */
+    private Map<String, Double> checkDeductions;
+
+    /**
+     * The maximum number of messages to report for each check.
+     */
+    private int messageLimit;
+
+    /**
+     * The number of threads used to audit the files.
+     */
+    private int parallelism;
+
+    /**
+     * The cache of code style violations, or {@code null} if no cache is used.
+     */
+    private StyleCache cache;
+
     /**
      * Private default constructor so no objects can be created of this type.
      */
@@ -80,29 +116,70 @@ public final class StyleChecker {
      * the code style checker. The policy file specifies the
      * <a href="https://checkstyle.sourceforge.io">Checkstyle</a> configuration to enforce.
      * The maximum score defaults to 0. The deduction amount per infraction defaults to 0.
+     * Only the first 100 messages of each check are reported.
      *
      * @param directory  the directory with Java files to audit for code style errors
      * @param policyFile the Checkstyle configuration file to enforce
      * @return a new {@link StyleChecker} object
      */
     public static StyleChecker lint(String directory, String policyFile) {
+        StyleChecker checker = new StyleChecker();
+        checker.setDirectory(directory);
+        checker.withMaxScore(0);
+        checker.withDeduction(0);
+        checker.checkDeductions = new HashMap<>();
+        checker.withMessageLimit(DEFAULT_MESSAGE_LIMIT);
+        checker.withParallelism(1);
+
+        try {
+            checker.policy = StylePolicy.load(policyFile);
+        } catch (CheckstyleException e) {
+            throw new RuntimeException(e);
+        }
+
+        return checker;
+    }
+
+    /**
+     * Creates a new {@link StyleChecker} with the same settings and configuration
+     * as this one, which audits the files in a different directory.
+     *
+     * @param directory the directory with Java files to audit for code style errors
+     * @return a new {@link StyleChecker} object
+     */
+    StyleChecker forDirectory(String directory) {
+        StyleChecker checker = new StyleChecker();
+        checker.setDirectory(directory);
+        checker.policy = this.policy;
+        checker.maxScore = this.maxScore;
+        checker.deduction = this.deduction;
+        checker.checkDeductions = new HashMap<>(this.checkDeductions);
+        checker.messageLimit = this.messageLimit;
+        checker.parallelism = this.parallelism;
+        checker.cache = this.cache;
+        return checker;
+    }
+
+    /**
+     * Sets the directory to audit and finds all of the Java files inside of it.
+     *
+     * @param directory the directory with Java files to audit for code style errors
+     */
+    private void setDirectory(String directory) {
         File dir = new File(directory);
         if (!dir.exists() || !dir.canExecute() || !dir.isDirectory()) {
             throw new IllegalArgumentException("directory parameter must specify a valid directory that is readable.");
         }
 
-        StyleChecker checker = new StyleChecker();
-        checker.directory = dir.getAbsolutePath();
-        checker.files = new ArrayList<>();
-        checker.withMaxScore(0);
-        checker.withDeduction(0);
+        this.directory = dir.getAbsolutePath();
+        this.files = new ArrayList<>();
 
         try {
             Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<>() {
                 @Override
                 public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
                     if (attrs.isRegularFile() && path.toString().endsWith(".java")) {
-                        checker.files.add(path.toFile());
+                        files.add(path.toFile());
                     }
                     return FileVisitResult.CONTINUE;
                 }
@@ -119,16 +196,6 @@ public final class StyleChecker {
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-
-        try {
-            checker.configuration = ConfigurationLoader.loadConfiguration(
-                policyFile, new PropertiesExpander(System.getProperties())
-            );
-        } catch (CheckstyleException e) {
-            throw new RuntimeException(e);
-        }
-
-        return checker;
     }
 
     /**
@@ -155,6 +222,87 @@ public final class StyleChecker {
         return this;
     }
 
+    /**
+     * Specifies the amount to deduct from the score per code style infraction of a single check,
+     * instead of the amount given to {@link #withDeduction(double)}. The check is named the same
+     * way as in the code style report: by its module id if it has one, or otherwise by its name
+     * without the {@code Check} suffix (e.g., {@code NeedBraces}).
+     *
+     * @param check  the module id or name of the check
+     * @param points the number of points to deduct for each infraction of the check
+     * @return the {@link StyleChecker} with the new deduction setting
+     */
+    public StyleChecker withDeduction(String check, double points) {
+        if (check == null) {
+            throw new IllegalArgumentException("check cannot be null.");
+        }
+
+        this.checkDeductions.put(check, points);
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of messages to report for each check. Further infractions
+     * of a check still count towards the score, but are only included in a summary of the
+     * number of infractions per check and per file at the end of the report. This keeps the
+     * report short for submissions with many infractions. Defaults to 100.
+     *
+     * @param messages the maximum number of messages to report for each check
+     * @return the {@link StyleChecker} with the new message limit
+     */
+    public StyleChecker withMessageLimit(int messages) {
+        if (messages < 1) {
+            throw new IllegalArgumentException("messages must be positive.");
+        }
+
+        this.messageLimit = messages;
+        return this;
+    }
+
+    /**
+     * Specifies the number of threads used to audit the files. The threads take small groups
+     * of files in order, and each group is audited by a Checkstyle {@link Checker} from a pool,
+     * so no thread gets far ahead of the report. The report and the score are the same as when auditing on a single
+     * thread, as long as the configuration does not use checks that look at several files
+     * at once (e.g., {@code TranslationCheck}). Defaults to 1.
+     *
+     * @param threads the number of threads used to audit the files
+     * @return the {@link StyleChecker} with the new parallelism setting
+     */
+    public StyleChecker withParallelism(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+
+        this.parallelism = threads;
+        return this;
+    }
+
+    /**
+     * Specifies a directory to cache the code style violations of each file in. Files with the
+     * same name and contents as a file that was audited before, with the same policy file and
+     * Checkstyle version, are not audited again; their cached violations are reported instead.
+     * The cache can be shared between submissions and between runs. The directory is created
+     * if it does not exist. By default, no cache is used.
+     * <p>
+     * Only the policy file itself is part of the cache key, so the cache directory should be
+     * cleared when a file that the policy refers to (e.g., a suppressions file) changes.
+     *
+     * @param cacheDirectory the directory to store the cached violations in
+     * @return the {@link StyleChecker} with the new cache setting
+     */
+    public StyleChecker withCache(String cacheDirectory) {
+        Path dir = Paths.get(cacheDirectory);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cacheDirectory parameter must specify a valid directory that is writable.", e);
+        }
+
+        this.cache = new StyleCache(dir, this.policy.getHash());
+        return this;
+    }
+
     /**
      * Runs the style checker and returns a {@link GradedTestResult}
      * with the audit results.
@@ -162,17 +310,11 @@ public final class StyleChecker {
      * @return the audit results from the code style run
      */
     GradedTestResult grade() {
-        Checker checker = new Checker();
         ByteArrayOutputStream linterOutput = new ByteArrayOutputStream();
-        DefaultLogger listener = new DefaultLogger(linterOutput, AutomaticBean.OutputStreamOptions.NONE);
-        checker.addListener(listener);
-        checker.setBasedir(directory);
-        checker.setModuleClassLoader(Checker.class.getClassLoader());
 
-        int numErrors;
+        StyleReport report;
         try {
-            checker.configure(configuration);
-            numErrors = checker.process(files);
+            report = report(linterOutput);
         } catch (CheckstyleException e) {
             e.printStackTrace();
             GradedTestResult result = new GradedTestResult(TEST_RESULT_NAME, "", 0, GradedTestResult.VISIBLE);
@@ -181,11 +323,150 @@ public final class StyleChecker {
         }
 
         GradedTestResult result = new GradedTestResult(TEST_RESULT_NAME, "", this.maxScore, GradedTestResult.VISIBLE);
-        result.setScore(Math.max(result.getPoints() - (this.deduction * numErrors), 0));
+        result.setScore(Math.max(result.getPoints() - report.getDeduction(), 0));
         result.addOutput(linterOutput.toString());
         return result;
     }
 
+    /**
+     * Audits the files that are not in the cache, and writes the report for all of the files
+     * to the output. The violations of each file are passed on to the report, and stored in
+     * the cache, as soon as the file has been audited.
+     *
+     * @param output the stream for the audit output
+     * @return the finished report
+     * @throws CheckstyleException if the audit fails
+     */
+    private StyleReport report(OutputStream output) throws CheckstyleException {
+        StyleReport report = new StyleReport(
+            output, this.files.size(), this.messageLimit, this.deduction, this.checkDeductions
+        );
+        Map<String, Integer> positions = new HashMap<>();
+        String[] keys = new String[this.files.size()];
+        List<File> uncached = new ArrayList<>();
+        List<Integer> uncachedPositions = new ArrayList<>();
+
+        for (int i = 0; i < this.files.size(); i++) {
+            File file = this.files.get(i);
+            String fileName = CommonUtil.relativizeAndNormalizePath(this.directory, file.getAbsolutePath());
+            positions.put(fileName, i);
+            List<StyleViolation> cached = null;
+            if (this.cache != null) {
+                keys[i] = this.cache.keyOf(file, fileName);
+                cached = this.cache.get(keys[i]);
+            }
+
+            if (cached != null) {
+                report.fileAudited(i, fileName, cached, List.of());
+            } else {
+                uncached.add(file);
+                uncachedPositions.add(i);
+            }
+        }
+
+        StyleAuditRecorder.FileListener listener = (fileName, violations, exceptions) -> {
+            int position = positions.get(fileName);
+            if (this.cache != null && exceptions.isEmpty()) {
+                this.cache.put(keys[position], violations);
+            }
+            report.fileAudited(position, fileName, violations, exceptions);
+        };
+
+        int threads = Math.min(this.parallelism, uncached.size());
+        if (threads > 1) {
+            auditInParallel(uncached, uncachedPositions, threads, listener, report);
+        } else {
+            // Files are audited in groups, so files a filter skips do not hold up the report for long
+            for (int start = 0; start < uncached.size(); start += FILES_PER_GROUP) {
+                int end = Math.min(start + FILES_PER_GROUP, uncached.size());
+                audit(uncached.subList(start, end), listener);
+                report.filesAudited(uncachedPositions.subList(start, end));
+            }
+        }
+
+        report.finish();
+        return report;
+    }
+
+    /**
+     * Audits a list of files with a {@link Checker} from the pool of the policy.
+     *
+     * @param files    the files to audit
+     * @param listener the listener that receives the violations of each file
+     * @throws CheckstyleException if the audit fails
+     */
+    private void audit(List<File> files, StyleAuditRecorder.FileListener listener) throws CheckstyleException {
+        if (files.isEmpty()) {
+            return;
+        }
+
+        Checker checker = this.policy.borrow();
+        StyleAuditRecorder recorder = new StyleAuditRecorder(listener);
+        checker.addListener(recorder);
+        checker.setBasedir(directory);
+
+        try {
+            checker.process(files);
+        } catch (CheckstyleException | RuntimeException e) {
+            // The checker may be left in an unknown state, so it is not reused
+            checker.destroy();
+            throw e;
+        }
+        checker.removeListener(recorder);
+        this.policy.release(checker);
+    }
+
+    /**
+     * Audits a list of files on several threads. Each thread takes the next group of
+     * {@value #FILES_PER_GROUP} files in order, but waits before taking a group that is too far
+     * ahead of the files already written out to the report, so the report never holds more than
+     * a few groups per thread in memory.
+     *
+     * @param files     the files to audit
+     * @param positions the positions of the files in the report
+     * @param threads   the number of threads to use
+     * @param listener  the listener that receives the violations of each file
+     * @param report    the report the violations are written to
+     * @throws CheckstyleException if the audit fails
+     */
+    private void auditInParallel(List<File> files, List<Integer> positions, int threads,
+                                 StyleAuditRecorder.FileListener listener, StyleReport report)
+        throws CheckstyleException {
+        int window = 2 * threads * FILES_PER_GROUP;
+        AtomicInteger nextGroup = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<Void> workers = new ExecutorCompletionService<>(pool);
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers.submit(() -> {
+                    int start;
+                    while ((start = nextGroup.getAndAdd(FILES_PER_GROUP)) < files.size()) {
+                        int end = Math.min(start + FILES_PER_GROUP, files.size());
+                        report.awaitTurn(positions.get(start), window);
+                        audit(files.subList(start, end), listener);
+                        report.filesAudited(positions.subList(start, end));
+                    }
+                    return null;
+                });
+            }
+
+            // Wait for the workers as they finish, so that a failure stops the others right away
+            for (int i = 0; i < threads; i++) {
+                workers.take().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CheckstyleException) {
+                throw (CheckstyleException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CheckstyleException("Code style check was interrupted.", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     /**
      * Runs the style checker and prints the results.
      * Can be used via the command line directly rather than creating an {@link AutoGrader}.
@@ -0,0 +1,217 @@
+package edu.purdue.cs.percolator;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.PropertiesExpander;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The {@link StylePolicy} class holds a parsed Checkstyle configuration, along with a pool of
+ * {@link Checker Checkers} that have already been configured with it.
+ * <p>
+ * Policies are cached by the path and the modification time of the policy file, so that
+ * grading many submissions against the same policy in one JVM only parses the policy and
+ * builds the Checkstyle module tree once per thread, rather than once per submission.
+ * Changing the policy file on disk causes it to be loaded again, and the checkers of the old
+ * policy are destroyed once they are no longer in use. Policies that are not
+ * regular files (e.g., URLs or class path resources) are cached by name only.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class StylePolicy {
+
+    /**
+     * The policies that have been loaded, by the absolute path or name of the policy file.
+     */
+    private static final Map<String, StylePolicy> POLICIES = new ConcurrentHashMap<>();
+
+    /**
+     * The modification time of the policy file when it was loaded, or 0 if it is not a regular file.
+     */
+    private final long lastModified;
+
+    /**
+     * The configuration created from the policy file.
+     */
+    private final Configuration configuration;
+
+    /**
+     * The hash of the policy file.
+     */
+    private final String hash;
+
+    /**
+     * The configured checkers that are not in use.
+     */
+    private final Queue<Checker> checkers;
+
+    /**
+     * Whether the policy has been replaced by a newer version of the policy file.
+     */
+    private volatile boolean replaced;
+
+    /**
+     * Creates a new {@link StylePolicy}.
+     *
+     * @param lastModified  the modification time of the policy file, or 0 if it is not a regular file
+     * @param configuration the configuration created from the policy file
+     * @param hash          the hash of the policy file
+     */
+    private StylePolicy(long lastModified, Configuration configuration, String hash) {
+        this.lastModified = lastModified;
+        this.configuration = configuration;
+        this.hash = hash;
+        this.checkers = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns the policy for a policy file, loading it if it has not been loaded yet
+     * or if it has changed since it was loaded.
+     *
+     * @param policyFile the Checkstyle configuration file
+     * @return the policy
+     * @throws CheckstyleException if the policy file cannot be loaded
+     */
+    static StylePolicy load(String policyFile) throws CheckstyleException {
+        Path path = Paths.get(policyFile);
+        boolean regularFile = Files.isRegularFile(path);
+        String key = regularFile ? path.toAbsolutePath().normalize().toString() : policyFile;
+        long lastModified = regularFile ? lastModified(path) : 0;
+
+        // Threads loading the same policy at once wait for one of them to load it
+        final CheckstyleException[] error = new CheckstyleException[1];
+        StylePolicy policy = POLICIES.compute(key, (name, current) -> {
+            if (current != null && current.lastModified == lastModified) {
+                return current;
+            }
+
+            try {
+                StylePolicy loaded = new StylePolicy(lastModified, ConfigurationLoader.loadConfiguration(
+                    policyFile, new PropertiesExpander(System.getProperties())
+                ), hash(policyFile, path, regularFile));
+                if (current != null) {
+                    current.replace();
+                }
+                return loaded;
+            } catch (CheckstyleException e) {
+                error[0] = e;
+                return current;
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+        return policy;
+    }
+
+    /**
+     * Returns the hash of the policy file.
+     *
+     * @return the hash of the policy file
+     */
+    String getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Takes a configured {@link Checker} from the pool, or configures a new one if none are available.
+     * The checker must be given back with {@link #release(Checker)} once it is no longer in use.
+     *
+     * @return a configured {@link Checker}
+     * @throws CheckstyleException if the checker cannot be configured
+     */
+    Checker borrow() throws CheckstyleException {
+        Checker checker = this.checkers.poll();
+        if (checker == null) {
+            checker = new Checker();
+            checker.setModuleClassLoader(Checker.class.getClassLoader());
+            try {
+                checker.configure(this.configuration);
+            } catch (CheckstyleException e) {
+                checker.destroy();
+                throw e;
+            }
+        }
+        return checker;
+    }
+
+    /**
+     * Gives a {@link Checker} back to the pool so that it can be used again.
+     *
+     * @param checker the checker taken from {@link #borrow()}
+     */
+    void release(Checker checker) {
+        this.checkers.offer(checker);
+        // The policy may have been replaced while the checker was in use
+        if (this.replaced) {
+            destroyCheckers();
+        }
+    }
+
+    /**
+     * Marks the policy as replaced by a newer version of the policy file, and destroys the
+     * checkers in the pool. Checkers that are in use are destroyed when they are given back.
+     */
+    private void replace() {
+        this.replaced = true;
+        destroyCheckers();
+    }
+
+    /**
+     * Destroys the checkers in the pool.
+     */
+    private void destroyCheckers() {
+        Checker checker;
+        while ((checker = this.checkers.poll()) != null) {
+            checker.destroy();
+        }
+    }
+
+    /**
+     * Returns the hash of a policy file.
+     *
+     * @param policyFile  the Checkstyle configuration file
+     * @param path        the path of the policy file
+     * @param regularFile whether the policy file is a regular file
+     * @return the hash of the policy file
+     */
+    private static String hash(String policyFile, Path path, boolean regularFile) {
+        try {
+            // The policy may also be a URL or a class path resource, which are identified by name
+            return StyleCache.hash(regularFile
+                ? Files.readAllBytes(path)
+                : policyFile.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the modification time of a file.
+     *
+     * @param path the file
+     * @return the modification time of the file in milliseconds
+     */
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
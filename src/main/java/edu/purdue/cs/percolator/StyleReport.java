@@ -0,0 +1,305 @@
+package edu.purdue.cs.percolator;
+
+import com.puppycrawl.tools.checkstyle.DefaultLogger;
+import com.puppycrawl.tools.checkstyle.api.AutomaticBean;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link StyleReport} class aggregates the code style violations of the audited files as
+ * they come in, and writes the code style report in the same format as Checkstyle's
+ * {@link DefaultLogger}.
+ * <p>
+ * Files can be reported in any order and from several threads, but they are always written
+ * out in the order they were found in, so the report does not depend on how the files were
+ * audited. Threads wait before auditing files too far ahead of the next file to write out
+ * (see {@link #awaitTurn(int, int)}), so only a bounded number of files are held in memory.
+ * Only the first few messages of each check are written out; the rest are only counted, and a
+ * summary of the violations per check and per file is added to the end of the report instead.
+ * Each exception thrown while auditing a file counts as one error of a check without its own
+ * deduction.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class StyleReport {
+
+    /**
+     * The writer for the report.
+     */
+    private final PrintWriter writer;
+
+    /**
+     * The logger used to write the start and end of audit messages.
+     */
+    private final DefaultLogger logger;
+
+    /**
+     * The maximum number of messages to write out for each check.
+     */
+    private final int messageLimit;
+
+    /**
+     * The points to deduct for each error of a check without its own deduction.
+     */
+    private final double deduction;
+
+    /**
+     * The points to deduct for each error, by check.
+     */
+    private final Map<String, Double> checkDeductions;
+
+    /**
+     * The number of violations of each check, in the order the checks were first seen.
+     */
+    private final Map<String, Integer> checkCounts;
+
+    /**
+     * The number of violations in each file, in file order.
+     */
+    private final Map<String, Integer> fileCounts;
+
+    /**
+     * The number of errors of each check with its own deduction.
+     */
+    private final Map<String, Integer> weightedErrors;
+
+    /**
+     * The files that were reported before all of the files in front of them, by their position.
+     */
+    private final Map<Integer, PendingFile> pending;
+
+    /**
+     * The positions of the files that have been audited.
+     */
+    private final BitSet audited;
+
+    /**
+     * The number of files to report.
+     */
+    private final int numFiles;
+
+    /**
+     * The position of the next file to write out.
+     */
+    private int nextFile;
+
+    /**
+     * The number of errors of checks without their own deduction.
+     */
+    private int defaultErrors;
+
+    /**
+     * The number of messages that were counted but not written out.
+     */
+    private int omitted;
+
+    /**
+     * Creates a new {@link StyleReport} and writes the start of audit message.
+     *
+     * @param output          the stream for the report
+     * @param numFiles        the number of files to report
+     * @param messageLimit    the maximum number of messages to write out for each check
+     * @param deduction       the points to deduct for each error of a check without its own deduction
+     * @param checkDeductions the points to deduct for each error, by check
+     */
+    StyleReport(OutputStream output, int numFiles, int messageLimit, double deduction,
+                Map<String, Double> checkDeductions) {
+        this.writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.logger = new DefaultLogger(output, AutomaticBean.OutputStreamOptions.NONE);
+        this.numFiles = numFiles;
+        this.messageLimit = messageLimit;
+        this.deduction = deduction;
+        this.checkDeductions = checkDeductions;
+        this.checkCounts = new LinkedHashMap<>();
+        this.fileCounts = new LinkedHashMap<>();
+        this.weightedErrors = new HashMap<>();
+        this.pending = new HashMap<>();
+        this.audited = new BitSet(numFiles);
+
+        this.logger.auditStarted(null);
+    }
+
+    /**
+     * Reports the violations of a file. The violations are written out once all of the
+     * files in front of it have been reported.
+     *
+     * @param position   the position of the file
+     * @param fileName   the name of the file
+     * @param violations the violations of the file
+     * @param exceptions the formatted exceptions thrown while auditing the file
+     */
+    synchronized void fileAudited(int position, String fileName, List<StyleViolation> violations,
+                                  List<String> exceptions) {
+        this.pending.put(position, new PendingFile(fileName, violations, exceptions));
+        this.audited.set(position);
+        writePending();
+    }
+
+    /**
+     * Marks files as audited. Files that were audited without being reported
+     * (e.g., because a filter skipped them) have no violations.
+     *
+     * @param positions the positions of the files
+     */
+    synchronized void filesAudited(List<Integer> positions) {
+        positions.forEach(this.audited::set);
+        writePending();
+    }
+
+    /**
+     * Waits until a file is close enough to the next file to write out, so that its
+     * violations do not have to be held in memory for long.
+     *
+     * @param position the position of the file
+     * @param window   how far ahead of the next file to write out a file may be audited
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    synchronized void awaitTurn(int position, int window) throws InterruptedException {
+        while (position >= this.nextFile + window) {
+            wait();
+        }
+    }
+
+    /**
+     * Writes out the remaining files, the end of audit message and the summary.
+     * Files that were never reported (e.g., because a filter skipped them) have no violations.
+     */
+    synchronized void finish() {
+        for (; this.nextFile < this.numFiles; this.nextFile++) {
+            PendingFile file = this.pending.remove(this.nextFile);
+            if (file != null) {
+                write(file.fileName, file.violations, file.exceptions);
+            }
+        }
+        this.writer.flush();
+        this.logger.auditFinished(null);
+
+        if (this.omitted > 0) {
+            this.writer.printf("Only the first %d violations of each check are shown (%d not shown).%n",
+                this.messageLimit, this.omitted);
+            this.writer.println("Violations per check:");
+            this.checkCounts.forEach((check, count) -> this.writer.printf("    %s: %d%n", check, count));
+            this.writer.println("Violations per file:");
+            this.fileCounts.forEach((file, count) -> this.writer.printf("    %s: %d%n", file, count));
+            this.writer.flush();
+        }
+    }
+
+    /**
+     * Returns the number of files that were reported but not written out yet.
+     *
+     * @return the number of pending files
+     */
+    synchronized int getPendingFiles() {
+        return this.pending.size();
+    }
+
+    /**
+     * Returns the total number of points to deduct for the code style errors.
+     *
+     * @return the number of points to deduct
+     */
+    synchronized double getDeduction() {
+        double total = this.deduction * this.defaultErrors;
+        for (Map.Entry<String, Integer> entry : this.weightedErrors.entrySet()) {
+            total += this.checkDeductions.get(entry.getKey()) * entry.getValue();
+        }
+        return total;
+    }
+
+    /**
+     * Writes out the files that are no longer waiting on the files in front of them.
+     */
+    private void writePending() {
+        int first = this.nextFile;
+        while (this.audited.get(this.nextFile)) {
+            PendingFile file = this.pending.remove(this.nextFile++);
+            if (file != null) {
+                write(file.fileName, file.violations, file.exceptions);
+            }
+        }
+        if (this.nextFile != first) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Counts the violations of a file and writes out the ones that are within the message limit.
+     *
+     * @param fileName   the name of the file
+     * @param violations the violations of the file
+     * @param exceptions the formatted exceptions thrown while auditing the file
+     */
+    private void write(String fileName, List<StyleViolation> violations, List<String> exceptions) {
+        for (StyleViolation violation : violations) {
+            String check = violation.getSource();
+            int count = this.checkCounts.merge(check, 1, Integer::sum);
+            this.fileCounts.merge(fileName, 1, Integer::sum);
+            if (violation.getSeverity() == SeverityLevel.ERROR) {
+                if (this.checkDeductions.containsKey(check)) {
+                    this.weightedErrors.merge(check, 1, Integer::sum);
+                } else {
+                    this.defaultErrors++;
+                }
+            }
+
+            if (count <= this.messageLimit) {
+                this.writer.println(violation.format(fileName));
+            } else {
+                this.omitted++;
+            }
+        }
+
+        for (String exception : exceptions) {
+            this.defaultErrors++;
+            this.writer.print(exception);
+        }
+    }
+
+    /**
+     * The {@link PendingFile} class holds a file that cannot be written out yet.
+     */
+    private static final class PendingFile {
+
+        /**
+         * The name of the file.
+         */
+        private final String fileName;
+
+        /**
+         * The violations of the file.
+         */
+        private final List<StyleViolation> violations;
+
+        /**
+         * The formatted exceptions thrown while auditing the file.
+         */
+        private final List<String> exceptions;
+
+        /**
+         * Creates a new {@link PendingFile}.
+         *
+         * @param fileName   the name of the file
+         * @param violations the violations of the file
+         * @param exceptions the formatted exceptions thrown while auditing the file
+         */
+        PendingFile(String fileName, List<StyleViolation> violations, List<String> exceptions) {
+            this.fileName = fileName;
+            this.violations = violations;
+            this.exceptions = exceptions;
+        }
+
+    }
+
+}
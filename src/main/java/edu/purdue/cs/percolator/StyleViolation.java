@@ -0,0 +1,219 @@
+package edu.purdue.cs.percolator;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+import java.util.Locale;
+
+/**
+ * The {@link StyleViolation} class holds a single code style violation reported by Checkstyle,
+ * without the name of the file it was found in. Violations can be written to and read back from
+ * a single line of text, so that they can be stored in a {@link StyleCache}.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class StyleViolation {
+
+    /**
+     * The separator between the fields of a violation when it is written as a line of text.
+     */
+    private static final char FIELD_SEPARATOR = '\t';
+
+    /**
+     * The severity of the violation.
+     */
+    private final SeverityLevel severity;
+
+    /**
+     * The line of the violation.
+     */
+    private final int line;
+
+    /**
+     * The column of the violation, or 0 if the violation is not at a specific column.
+     */
+    private final int column;
+
+    /**
+     * The module id of the check that reported the violation, or its short name if it has no id.
+     */
+    private final String source;
+
+    /**
+     * The message of the violation.
+     */
+    private final String message;
+
+    /**
+     * Creates a new {@link StyleViolation}.
+     *
+     * @param severity the severity of the violation
+     * @param line     the line of the violation
+     * @param column   the column of the violation, or 0 if it is not at a specific column
+     * @param source   the module id or short name of the check that reported the violation
+     * @param message  the message of the violation
+     */
+    StyleViolation(SeverityLevel severity, int line, int column, String source, String message) {
+        this.severity = severity;
+        this.line = line;
+        this.column = column;
+        this.source = source;
+        this.message = message;
+    }
+
+    /**
+     * Creates a new {@link StyleViolation} from a Checkstyle {@link AuditEvent}.
+     *
+     * @param event the event that reported the violation
+     * @return the new {@link StyleViolation}
+     */
+    static StyleViolation of(AuditEvent event) {
+        String source = event.getModuleId();
+        if (source == null) {
+            source = checkShortName(event.getSourceName());
+        }
+        return new StyleViolation(event.getSeverityLevel(), event.getLine(), event.getColumn(), source, event.getMessage());
+    }
+
+    /**
+     * Returns the severity of the violation.
+     *
+     * @return the severity of the violation
+     */
+    SeverityLevel getSeverity() {
+        return this.severity;
+    }
+
+    /**
+     * Returns the module id of the check that reported the violation, or its short name if it has no id.
+     *
+     * @return the module id or short name of the check
+     */
+    String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Formats the violation the same way as Checkstyle's {@code AuditEventDefaultFormatter}.
+     *
+     * @param fileName the name of the file the violation was found in
+     * @return the formatted violation
+     */
+    String format(String fileName) {
+        StringBuilder builder = new StringBuilder();
+        builder.append('[')
+            .append(this.severity == SeverityLevel.WARNING ? "WARN" : this.severity.getName().toUpperCase(Locale.US))
+            .append("] ")
+            .append(fileName)
+            .append(':')
+            .append(this.line);
+        if (this.column > 0) {
+            builder.append(':').append(this.column);
+        }
+        return builder.append(": ")
+            .append(this.message)
+            .append(" [")
+            .append(this.source)
+            .append(']')
+            .toString();
+    }
+
+    /**
+     * Writes the violation as a single line of text, without a line separator.
+     *
+     * @return the violation as a line of text
+     */
+    String toLine() {
+        return this.severity.getName() + FIELD_SEPARATOR + this.line + FIELD_SEPARATOR + this.column +
+            FIELD_SEPARATOR + escape(this.source) + FIELD_SEPARATOR + escape(this.message);
+    }
+
+    /**
+     * Reads a violation from a line of text written by {@link #toLine()}.
+     *
+     * @param line the line of text
+     * @return the violation
+     * @throws IllegalArgumentException if the line is not a valid violation
+     */
+    static StyleViolation fromLine(String line) {
+        String[] fields = line.split(String.valueOf(FIELD_SEPARATOR), -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("line is not a valid style violation.");
+        }
+        return new StyleViolation(
+            SeverityLevel.getInstance(fields[0]),
+            Integer.parseInt(fields[1]),
+            Integer.parseInt(fields[2]),
+            unescape(fields[3]),
+            unescape(fields[4])
+        );
+    }
+
+    /**
+     * Returns the short name of a check the same way as Checkstyle's {@code AuditEventDefaultFormatter}:
+     * the simple class name without the {@code Check} suffix.
+     *
+     * @param sourceName the fully qualified class name of the check
+     * @return the short name of the check
+     */
+    private static String checkShortName(String sourceName) {
+        String checkName = sourceName.substring(sourceName.lastIndexOf('.') + 1);
+        if (checkName.endsWith("Check")) {
+            checkName = checkName.substring(0, checkName.lastIndexOf("Check"));
+        }
+        return checkName;
+    }
+
+    /**
+     * Escapes the backslashes, tabs and line separators in a field.
+     *
+     * @param field the field to escape
+     * @return the escaped field
+     */
+    private static String escape(String field) {
+        StringBuilder builder = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reverses {@link #escape(String)}.
+     *
+     * @param field the escaped field
+     * @return the original field
+     */
+    private static String unescape(String field) {
+        StringBuilder builder = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char next = field.charAt(++i);
+                builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,213 @@
+package edu.purdue.cs.percolator;
+
+import edu.purdue.cs.percolator.util.SetupUtilities;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link SubmissionClassLoader} class loads the classes of a single student submission,
+ * along with fresh copies of the test suites, so that several submissions can be graded in
+ * the same JVM without sharing any static state.
+ * <p>
+ * Unlike a regular {@link URLClassLoader}, this class loader looks for classes in its own
+ * locations <em>before</em> asking its parent. Only the classes of the grading framework
+ * itself (the JDK, JUnit, JGrade, Checkstyle and Percolator) are shared with the parent,
+ * which keeps them loaded and warmed up across submissions. Classes in the student package,
+ * as given by {@link SetupUtilities#getPackageToTest()}, are only ever loaded from the
+ * submission, so that a class with the same name elsewhere on the class path (e.g., the
+ * reference solution) can never be graded in its place.
+ * <p>
+ * If the submission was compiled in memory by a {@link SubmissionCompiler}, the student classes
+ * are only loaded from memory. The submission directory is not on the class path, so class files
+ * left in it (e.g., from an earlier build) can never be graded in place of the sources.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class SubmissionClassLoader extends URLClassLoader {
+
+    /**
+     * The packages that are shared with the parent class loader.
+     */
+    private static final String[] SHARED_PACKAGES = {
+        "java.", "javax.", "jdk.", "sun.", "com.sun.",
+        "org.junit.", "junit.", "org.hamcrest.",
+        "com.github.tkutcher.jgrade.", "com.puppycrawl.tools.checkstyle."
+    };
+
+    /**
+     * The location the Percolator classes were loaded from.
+     */
+    private static final String PERCOLATOR_LOCATION = locationOf(SubmissionClassLoader.class);
+
+    /**
+     * The package prefix of the student classes, or an empty string for the default package.
+     */
+    private final String studentPackage;
+
+    /**
+     * The bytecode of the classes compiled in memory, keyed by their binary name.
+     */
+    private final Map<String, byte[]> compiledClasses;
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /**
+     * Creates a new {@link SubmissionClassLoader}.
+     *
+     * @param submission the directory with the compiled student classes
+     * @param testSuites the test suites that will be loaded from this class loader
+     */
+    SubmissionClassLoader(File submission, Class<?>[] testSuites) {
+        this(classPath(submission, testSuites), Collections.emptyMap());
+    }
+
+    /**
+     * Creates a new {@link SubmissionClassLoader} for a submission that was compiled in memory.
+     *
+     * @param testSuites      the test suites that will be loaded from this class loader
+     * @param compiledClasses the bytecode of the classes compiled in memory, keyed by their binary name
+     */
+    SubmissionClassLoader(Class<?>[] testSuites, Map<String, byte[]> compiledClasses) {
+        this(classPath(null, testSuites), compiledClasses);
+    }
+
+    /**
+     * Creates a new {@link SubmissionClassLoader}.
+     *
+     * @param classPath       the locations to load classes from
+     * @param compiledClasses the bytecode of the classes compiled in memory, keyed by their binary name
+     */
+    private SubmissionClassLoader(URL[] classPath, Map<String, byte[]> compiledClasses) {
+        super(classPath, SubmissionClassLoader.class.getClassLoader());
+        this.studentPackage = SetupUtilities.getPackageToTest();
+        this.compiledClasses = compiledClasses;
+    }
+
+    /**
+     * Loads fresh copies of the test suites from this class loader.
+     *
+     * @param testSuites the test suites loaded by the parent class loader
+     * @return the test suites loaded by this class loader
+     * @throws ClassNotFoundException if a test suite could not be found
+     */
+    Class<?>[] loadTestSuites(Class<?>[] testSuites) throws ClassNotFoundException {
+        Class<?>[] loaded = new Class<?>[testSuites.length];
+        for (int i = 0; i < testSuites.length; i++) {
+            loaded[i] = loadClass(testSuites[i].getName());
+        }
+        return loaded;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (isShared(name)) {
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null) {
+                try {
+                    c = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    if (!this.studentPackage.isEmpty() && name.startsWith(this.studentPackage)) {
+                        throw e;
+                    }
+                    c = super.loadClass(name, false);
+                }
+            }
+
+            if (resolve) {
+                resolveClass(c);
+            }
+            return c;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytecode = this.compiledClasses.get(name);
+        if (bytecode != null) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+        return super.findClass(name);
+    }
+
+    /**
+     * Determines whether a class is part of the grading framework and
+     * should be shared with the parent class loader.
+     *
+     * @param name the binary name of the class
+     * @return true if the class is shared, false otherwise
+     */
+    private boolean isShared(String name) {
+        for (String sharedPackage : SHARED_PACKAGES) {
+            if (name.startsWith(sharedPackage)) {
+                return true;
+            }
+        }
+
+        // Test suites may live in a Percolator package without being part of Percolator
+        if (name.startsWith("edu.purdue.cs.percolator.") && PERCOLATOR_LOCATION != null) {
+            URL resource = getParent().getResource(name.replace('.', '/') + ".class");
+            return resource != null && resource.toString().contains(PERCOLATOR_LOCATION);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the location a class was loaded from.
+     *
+     * @param c the class
+     * @return the location of the class, or {@code null} if it is unknown
+     */
+    private static String locationOf(Class<?> c) {
+        CodeSource source = c.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            return null;
+        }
+        return source.getLocation().getPath();
+    }
+
+    /**
+     * Returns the class path for a submission: the submission directory,
+     * followed by the locations the test suites were loaded from.
+     *
+     * @param submission the directory with the compiled student classes,
+     *                   or {@code null} if the submission was compiled in memory
+     * @param testSuites the test suites
+     * @return the class path for the submission
+     */
+    private static URL[] classPath(File submission, Class<?>[] testSuites) {
+        Set<URL> urls = new LinkedHashSet<>();
+        try {
+            if (submission != null) {
+                urls.add(submission.toURI().toURL());
+            }
+            for (Class<?> testSuite : testSuites) {
+                CodeSource source = testSuite.getProtectionDomain().getCodeSource();
+                if (source != null && source.getLocation() != null) {
+                    // Normalize the location so that the same directory is not added twice
+                    urls.add(new File(source.getLocation().toURI()).toURI().toURL());
+                }
+            }
+        } catch (MalformedURLException | URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+}
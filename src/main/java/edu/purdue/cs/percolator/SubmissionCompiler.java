@@ -0,0 +1,245 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The {@link SubmissionCompiler} class compiles the Java files of a student submission in memory,
+ * so that a submission can be graded straight from its sources without starting {@code javac}
+ * in a separate JVM or writing class files to disk. The compiled classes are loaded by a
+ * {@link SubmissionClassLoader}.
+ * <p>
+ * The compiler and its file manager are created once and reused for every submission, so the
+ * JDK and the class path are only indexed once when grading a batch of submissions. The student
+ * sources are compiled against the class path of the grading JVM.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class SubmissionCompiler {
+
+    /**
+     * The name of the test result for a submission that does not compile.
+     */
+    static final String RESULT_NAME = "Compilation";
+
+    /**
+     * The failure message of a test case that was not run because the submission does not compile.
+     */
+    static final String NOT_RUN_MESSAGE = "not run (compilation failed)";
+
+    /**
+     * The system Java compiler.
+     */
+    private final JavaCompiler compiler;
+
+    /**
+     * The file manager used to read the sources and the class path, shared by every compilation.
+     */
+    private final StandardJavaFileManager fileManager;
+
+    /**
+     * The options passed to the compiler.
+     */
+    private final List<String> options;
+
+    /**
+     * Creates a new {@link SubmissionCompiler}.
+     *
+     * @throws IllegalStateException if the JVM does not include a Java compiler (i.e., it is not a JDK)
+     */
+    SubmissionCompiler() {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (this.compiler == null) {
+            throw new IllegalStateException("Compiling submissions requires a JDK, not a JRE.");
+        }
+        this.fileManager = this.compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8);
+        this.options = Arrays.asList(
+            "-classpath", System.getProperty("java.class.path"),
+            "-implicit:none",
+            "-encoding", "UTF-8",
+            "-g"
+        );
+    }
+
+    /**
+     * Compiles every Java file in a submission directory and its subdirectories.
+     *
+     * @param submission the directory with the Java files of the submission
+     * @return the result of the compilation
+     * @throws UncheckedIOException if the submission directory cannot be read
+     */
+    synchronized Result compile(File submission) {
+        List<File> sources;
+        try (Stream<Path> files = Files.walk(submission.toPath())) {
+            sources = files.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                .map(Path::toFile)
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (sources.isEmpty()) {
+            return new Result(Collections.emptyMap(), null);
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        MemoryFileManager memory = new MemoryFileManager(this.fileManager);
+        boolean success = this.compiler.getTask(null, memory, diagnostics, this.options, null,
+            this.fileManager.getJavaFileObjectsFromFiles(sources)).call();
+        if (success) {
+            return new Result(memory.classes, null);
+        }
+
+        String errors = diagnostics.getDiagnostics().stream()
+            .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+            .map(d -> format(submission, d))
+            .collect(Collectors.joining());
+        GradedTestResult result = new GradedTestResult(RESULT_NAME, "", 0, TestCase.Visibility.VISIBLE.toString());
+        result.setScore(0);
+        result.addOutput(errors);
+        result.setPassed(false);
+        return new Result(Collections.emptyMap(), result);
+    }
+
+    /**
+     * Formats a compile error the way {@code javac} prints it, with the path of the source file
+     * relative to the submission directory.
+     *
+     * @param submission the directory with the Java files of the submission
+     * @param diagnostic the compile error
+     * @return the formatted compile error, ending with a line break
+     */
+    private static String format(File submission, Diagnostic<? extends JavaFileObject> diagnostic) {
+        String message = diagnostic.getMessage(Locale.ROOT);
+        if (diagnostic.getSource() == null) {
+            return "error: " + message + "\n";
+        }
+
+        Path source = Path.of(diagnostic.getSource().toUri());
+        Path base = submission.toPath().toAbsolutePath();
+        String file = source.startsWith(base) ? base.relativize(source).toString() : source.toString();
+        return file + ":" + diagnostic.getLineNumber() + ": error: " + message + "\n";
+    }
+
+    /**
+     * The {@link Result} class holds the result of compiling a submission.
+     */
+    static final class Result {
+
+        /**
+         * The bytecode of each compiled class, keyed by its binary name.
+         */
+        private final Map<String, byte[]> classes;
+
+        /**
+         * The graded result for a submission that does not compile, or {@code null} if it compiled.
+         */
+        private final GradedTestResult failure;
+
+        /**
+         * Creates a new {@link Result}.
+         *
+         * @param classes the bytecode of each compiled class, keyed by its binary name
+         * @param failure the graded result for a submission that does not compile,
+         *                or {@code null} if it compiled
+         */
+        Result(Map<String, byte[]> classes, GradedTestResult failure) {
+            this.classes = classes;
+            this.failure = failure;
+        }
+
+        /**
+         * Returns the bytecode of each compiled class.
+         *
+         * @return the bytecode of each compiled class, keyed by its binary name
+         */
+        Map<String, byte[]> getClasses() {
+            return this.classes;
+        }
+
+        /**
+         * Returns the graded result for a submission that does not compile. The result has
+         * no points, a score of 0, and the compile errors as its output.
+         *
+         * @return the graded result, or {@code null} if the submission compiled
+         */
+        GradedTestResult getFailure() {
+            return this.failure;
+        }
+
+    }
+
+    /**
+     * The {@link MemoryFileManager} class keeps the class files written by the compiler in memory.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        /**
+         * The bytecode of each compiled class, keyed by its binary name.
+         */
+        private final Map<String, byte[]> classes;
+
+        /**
+         * Creates a new {@link MemoryFileManager}.
+         *
+         * @param fileManager the file manager used to read the sources and the class path
+         */
+        MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+            this.classes = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            URI uri = URI.create("memory:///" + className.replace('.', '/') + kind.extension);
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new ByteArrayOutputStream() {
+                        @Override
+                        public void close() {
+                            classes.put(className, toByteArray());
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            // The wrapped file manager is shared by every compilation
+        }
+
+    }
+
+}
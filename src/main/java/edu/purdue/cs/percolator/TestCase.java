@@ -9,7 +9,7 @@ import java.lang.annotation.Target;
  * The {@link TestCase} annotation allows test methods to be graded using an {@link AutoGrader}.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.0
+ * @version 1.3
  * @since 1.0
  */
 @Retention(RetentionPolicy.RUNTIME)
@@ -44,6 +44,35 @@ public @interface TestCase {
      */
     Visibility visibility() default Visibility.VISIBLE;
 
+    /**
+     * The maximum number of bytes of standard output to keep for the test case.
+     * If the test case prints more than this, only the beginning and the end of
+     * its output are kept. The default value, 0, uses the limit set on the
+     * {@link AutoGrader}.
+     *
+     * @return the output limit of the test case, in bytes
+     */
+    int outputLimit() default 0;
+
+    /**
+     * The time limit for the test case, in milliseconds. If the test case does not finish
+     * in time, it is stopped and receives a score of 0. The default value, 0, uses the
+     * time limit set on the {@link AutoGrader}.
+     *
+     * @return the time limit of the test case, in milliseconds
+     */
+    long timeoutMillis() default 0;
+
+    /**
+     * The maximum number of bytes of memory the test case may allocate. If the test case
+     * allocates more, it is stopped and receives a score of 0. This counts every allocation,
+     * not just the memory in use at one time. The default value, 0, uses the allocation
+     * limit set on the {@link AutoGrader}.
+     *
+     * @return the allocation limit of the test case, in bytes
+     */
+    long maxAllocatedBytes() default 0;
+
 
     /**
      * The {@link Visibility} enum defines the test visibility
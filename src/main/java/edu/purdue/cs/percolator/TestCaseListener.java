@@ -2,13 +2,16 @@ package edu.purdue.cs.percolator;
 
 import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
 
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import org.junit.Ignore;
 import org.junit.runner.Description;
+import org.junit.runner.Result;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 
@@ -20,24 +23,44 @@ import org.junit.runner.notification.RunListener;
  * <p>
  * One important distinction from {@link com.github.tkutcher.jgrade.gradedtest.GradedTestListener}
  * is that this listener <em>is</em> thread-safe, allowing the use of {@link org.junit.experimental.ParallelComputer}.
+ * The standard output of each test is captured through an {@link OutputRouter}, so tests running
+ * at the same time, and any threads they create, each write to their own {@link CapturedOutput}.
+ * The wall-clock time, CPU time and allocated bytes of each test are recorded in its {@link TestMetrics}.
+ * If a {@link CheckpointWriter} is given, the test plan and each test result are appended to it as soon
+ * as they are known.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.0
+ * @version 1.3
  * @since 1.0
  */
+@RunListener.ThreadSafe
 class TestCaseListener extends RunListener {
 
-    private final static PrintStream ORIGINAL_OUT = System.out;
-
     /**
      * List of test results to pass to Gradescope.
      */
     private final Map<String, GradedTestResult> testResults;
 
     /**
-     * The output of the current test being ran.
+     * The output of the tests currently being ran.
+     */
+    private final Map<String, CapturedOutput> testOutputs;
+
+    /**
+     * The resources used by each test that has started.
+     */
+    private final Map<String, TestMetrics> testMetrics;
+
+    /**
+     * The position of each test in the test plan. Used to report the results
+     * in the same order no matter which order the tests finish in.
      */
-    private final Map<String, ByteArrayOutputStream> testOutputs;
+    private final Map<String, Integer> testOrder;
+
+    /**
+     * The next free position in the test plan.
+     */
+    private final AtomicInteger nextTestOrder;
 
     /**
      * The maximum score for the assignment.
@@ -45,25 +68,115 @@ class TestCaseListener extends RunListener {
     private final double maxScore;
 
     /**
-     * Creates a new {@link TestCaseListener} object.
+     * The maximum number of bytes of output to keep for a test,
+     * unless the test sets its own limit.
+     */
+    private final int outputLimit;
+
+    /**
+     * The checkpoint to append test results to, or {@code null} if there is none.
+     */
+    private final CheckpointWriter checkpoint;
+
+    /**
+     * Whether the test plan was recorded before the run started.
+     */
+    private volatile boolean planRecorded;
+
+    /**
+     * Creates a new {@link TestCaseListener} object with the default output limit.
      *
      * @param maxScore the maximum score to scale the test cases to
      */
     TestCaseListener(double maxScore) {
-        this.testResults = new HashMap<>();
-        this.testOutputs = new HashMap<>();
+        this(maxScore, AutoGrader.DEFAULT_OUTPUT_LIMIT);
+    }
+
+    /**
+     * Creates a new {@link TestCaseListener} object.
+     *
+     * @param maxScore    the maximum score to scale the test cases to
+     * @param outputLimit the maximum number of bytes of output to keep for a test
+     */
+    TestCaseListener(double maxScore, int outputLimit) {
+        this(maxScore, outputLimit, null);
+    }
+
+    /**
+     * Creates a new {@link TestCaseListener} object that appends test results to a checkpoint.
+     *
+     * @param maxScore    the maximum score to scale the test cases to
+     * @param outputLimit the maximum number of bytes of output to keep for a test
+     * @param checkpoint  the checkpoint to append test results to, or {@code null} for none
+     */
+    TestCaseListener(double maxScore, int outputLimit, CheckpointWriter checkpoint) {
+        this.testResults = new ConcurrentHashMap<>();
+        this.testOutputs = new ConcurrentHashMap<>();
+        this.testMetrics = new ConcurrentHashMap<>();
+        this.testOrder = new ConcurrentHashMap<>();
+        this.nextTestOrder = new AtomicInteger();
         this.maxScore = maxScore;
+        this.outputLimit = outputLimit;
+        this.checkpoint = checkpoint;
     }
 
     /**
      * Scales the test results to the maxScore and
-     * returns the list of test results.
+     * returns the list of test results in test plan order.
      *
      * @return the list of test results
      */
-    Collection<GradedTestResult> getTestResults() {
+    List<GradedTestResult> getTestResults() {
         scaleTestCases();
-        return this.testResults.values();
+        return orderedTestResults();
+    }
+
+    /**
+     * Returns the resources used by each test that has started, in test plan order.
+     *
+     * @return the list of test metrics
+     */
+    List<TestMetrics> getTestMetrics() {
+        return ordered(this.testMetrics);
+    }
+
+    /**
+     * Records the order of the tests in a test plan before the run starts. Used when only some
+     * of the tests in the plan will run (e.g., one shard of the plan), so that their results keep
+     * their positions in the whole plan, and so that the checkpoint lists every test in the plan.
+     *
+     * @param plan the {@link Description} of the whole test plan
+     */
+    void recordTestPlan(Description plan) {
+        recordTestOrder(plan);
+        if (this.checkpoint != null) {
+            checkpointTestPlan(plan);
+        }
+        this.planRecorded = true;
+    }
+
+    /**
+     * Called before any tests have been run. Records the order of the tests
+     * in the test plan, unless it was already recorded, and starts capturing standard output.
+     *
+     * @param description the {@link Description} object given by JUnit
+     */
+    @Override
+    public void testRunStarted(Description description) {
+        if (!this.planRecorded) {
+            recordTestPlan(description);
+        }
+        OutputRouter.install();
+    }
+
+    /**
+     * Called when all tests have finished. Stops capturing standard output.
+     *
+     * @param result the {@link Result} object given by JUnit
+     */
+    @Override
+    public void testRunFinished(Result result) {
+        OutputRouter.uninstall();
     }
 
     /**
@@ -76,18 +189,28 @@ class TestCaseListener extends RunListener {
     public void testStarted(Description description) {
         final String testKey = description.getDisplayName();
         TestCase testCase = description.getAnnotation(TestCase.class);
+        int limit = this.outputLimit;
         if (testCase != null) {
-            this.testResults.put(testKey, new GradedTestResult(
+            GradedTestResult result = new GradedTestResult(
                 testCase.name(),
                 testCase.group(),
                 testCase.points(),
                 testCase.visibility().toString()
-            ));
-            this.testResults.get(testKey).setScore(testCase.points());
+            );
+            result.setScore(testCase.points());
+            putTestResult(testKey, result);
+            if (testCase.outputLimit() > 0) {
+                limit = testCase.outputLimit();
+            }
         }
 
-        this.testOutputs.put(testKey, new ByteArrayOutputStream());
-        System.setOut(new PrintStream(this.testOutputs.get(testKey)));
+        CapturedOutput output = new CapturedOutput(limit);
+        this.testOutputs.put(testKey, output);
+        OutputRouter.routeTo(output);
+
+        TestMetrics metrics = new TestMetrics(testKey, testCase == null ? null : testCase.name());
+        this.testMetrics.put(testKey, metrics);
+        TestMetrics.setCurrent(metrics);
     }
 
     /**
@@ -99,12 +222,25 @@ class TestCaseListener extends RunListener {
     @Override
     public void testFinished(Description description) {
         final String testKey = description.getDisplayName();
-        final String testOutput = this.testOutputs.get(testKey).toString();
-        if (this.testResults.containsKey(testKey)) {
-            this.testResults.get(testKey).addOutput(testOutput);
+        final TestMetrics metrics = TestMetrics.current();
+        if (metrics != null) {
+            metrics.finish();
+            TestMetrics.setCurrent(null);
         }
+        OutputRouter.clearRoute();
 
-        System.setOut(ORIGINAL_OUT);
+        final CapturedOutput output = this.testOutputs.remove(testKey);
+        final GradedTestResult result = this.testResults.get(testKey);
+        if (output != null && result != null) {
+            result.addOutput(output.close());
+        }
+        final TestMetrics testMetrics = this.testMetrics.get(testKey);
+        if (output != null && testMetrics != null) {
+            testMetrics.setOutputTruncated(output.isTruncated());
+        }
+        if (result != null && this.checkpoint != null) {
+            this.checkpoint.result(testKey, this.testOrder.getOrDefault(testKey, -1), result);
+        }
     }
 
     /**
@@ -126,7 +262,11 @@ class TestCaseListener extends RunListener {
                 TestCase.Visibility.VISIBLE.toString()
             );
             result.addOutput(failure.getMessage() + "\n");
-            this.testResults.put(testKey, result);
+            putTestResult(testKey, result);
+            if (this.checkpoint != null) {
+                this.checkpoint.result(testKey, this.testOrder.get(testKey), result);
+                checkpointSkipped(failure.getDescription());
+            }
         } else {
             if (this.testResults.containsKey(testKey)) {
                 GradedTestResult result = this.testResults.get(testKey);
@@ -149,12 +289,94 @@ class TestCaseListener extends RunListener {
      * Called when the test results are requested.
      */
     void scaleTestCases() {
-        final double total = this.testResults.values().stream().mapToDouble(GradedTestResult::getPoints).sum();
+        final List<GradedTestResult> results = orderedTestResults();
+        final double total = results.stream().mapToDouble(GradedTestResult::getPoints).sum();
         final double ratio = total == 0 ? 0 : maxScore / total;
-        this.testResults.values().forEach(r -> {
+        results.forEach(r -> {
             r.setPoints(r.getPoints() * ratio);
             r.setScore(r.getScore() * ratio);
         });
     }
 
+    /**
+     * Stores a test result. If the test was not part of the test plan,
+     * it is placed after every test that was.
+     *
+     * @param testKey the display name of the test
+     * @param result  the result of the test
+     */
+    private void putTestResult(String testKey, GradedTestResult result) {
+        this.testOrder.computeIfAbsent(testKey, k -> this.nextTestOrder.getAndIncrement());
+        this.testResults.put(testKey, result);
+    }
+
+    /**
+     * Records the position of a test, and all of its children, in the test plan.
+     *
+     * @param description the {@link Description} of the test
+     */
+    private void recordTestOrder(Description description) {
+        this.testOrder.computeIfAbsent(description.getDisplayName(), k -> this.nextTestOrder.getAndIncrement());
+        description.getChildren().forEach(this::recordTestOrder);
+    }
+
+    /**
+     * Appends every test with a {@link TestCase} annotation in the test plan to the checkpoint.
+     * Ignored tests are left out, since they never produce a result.
+     *
+     * @param description the {@link Description} of the test plan
+     */
+    private void checkpointTestPlan(Description description) {
+        if (description.getAnnotation(Ignore.class) != null) {
+            return;
+        }
+        TestCase testCase = description.getAnnotation(TestCase.class);
+        if (description.isTest() && testCase != null) {
+            String testKey = description.getDisplayName();
+            this.checkpoint.planned(testKey, this.testOrder.get(testKey), testCase);
+        }
+        description.getChildren().forEach(this::checkpointTestPlan);
+    }
+
+    /**
+     * Appends every test of a test suite that has not started to the checkpoint as skipped.
+     * Called when the class-level setup or teardown of the suite fails, since the tests that
+     * have not started by then never will.
+     *
+     * @param description the {@link Description} of the test suite
+     */
+    private void checkpointSkipped(Description description) {
+        if (description.isTest() && !this.testMetrics.containsKey(description.getDisplayName())) {
+            this.checkpoint.skipped(description.getDisplayName());
+        }
+        description.getChildren().forEach(this::checkpointSkipped);
+    }
+
+    /**
+     * Returns the test results sorted by their position in the test plan.
+     * Results that are not part of the test plan are placed at the end,
+     * in the order they were reported.
+     *
+     * @return the ordered list of test results
+     */
+    private List<GradedTestResult> orderedTestResults() {
+        return ordered(this.testResults);
+    }
+
+    /**
+     * Returns the values of a map keyed by test, sorted by the position of
+     * their test in the test plan. Tests that are not part of the test plan
+     * are placed at the end.
+     *
+     * @param values the values keyed by the display name of their test
+     * @param <T>    the type of the values
+     * @return the ordered list of values
+     */
+    private <T> List<T> ordered(Map<String, T> values) {
+        return values.entrySet().stream()
+            .sorted(Comparator.comparingInt(e -> this.testOrder.getOrDefault(e.getKey(), Integer.MAX_VALUE)))
+            .map(Map.Entry::getValue)
+            .collect(Collectors.toList());
+    }
+
 }
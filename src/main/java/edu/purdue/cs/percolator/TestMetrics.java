@@ -0,0 +1,333 @@
+package edu.purdue.cs.percolator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The {@link TestMetrics} class holds the resources used by a single test: the wall-clock time
+ * it took, and the CPU time and the number of bytes allocated by the threads that ran it.
+ * <p>
+ * Resources are counted for the thread that started the test and, if the test ran under a
+ * {@link WatchdogStatement}, for the watched test thread. Threads created by the test itself
+ * are not counted. CPU time and allocated bytes are measured with the {@link ThreadMXBean}
+ * of the JVM, and are -1 if the JVM does not support measuring them.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class TestMetrics {
+
+    /**
+     * The thread management interface of the JVM.
+     */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * The thread management interface of the JVM, if it can measure allocated bytes.
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    /**
+     * The metrics of the test running on the current thread, if any.
+     */
+    private static final ThreadLocal<TestMetrics> CURRENT = new ThreadLocal<>();
+
+    static {
+        if (THREADS.isCurrentThreadCpuTimeSupported() && !THREADS.isThreadCpuTimeEnabled()) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    /**
+     * The display name of the test.
+     */
+    private final String testName;
+
+    /**
+     * The name given to the test by its {@link TestCase} annotation, or {@code null} if it has none.
+     */
+    private final String name;
+
+    /**
+     * The wall-clock time when the test started, in nanoseconds.
+     */
+    private final long startNanos;
+
+    /**
+     * The CPU time of the starting thread when the test started, in nanoseconds.
+     */
+    private final long startCpuNanos;
+
+    /**
+     * The number of bytes allocated by the starting thread when the test started.
+     */
+    private final long startAllocatedBytes;
+
+    /**
+     * The wall-clock time the test took, in nanoseconds, or -1 if it has not finished.
+     */
+    private long wallNanos;
+
+    /**
+     * The CPU time used by the test, in nanoseconds, or -1 if it cannot be measured.
+     */
+    private long cpuNanos;
+
+    /**
+     * The number of bytes allocated by the test, or -1 if it cannot be measured.
+     */
+    private long allocatedBytes;
+
+    /**
+     * Whether some of the output of the test was dropped because it went over the output limit.
+     */
+    private boolean outputTruncated;
+
+    /**
+     * Starts measuring a test on the current thread.
+     *
+     * @param testName the display name of the test
+     * @param name     the name given to the test by its {@link TestCase} annotation,
+     *                 or {@code null} if it has none
+     */
+    TestMetrics(String testName, String name) {
+        this.testName = testName;
+        this.name = name;
+        this.startNanos = System.nanoTime();
+        this.startCpuNanos = currentThreadCpuTime();
+        this.startAllocatedBytes = currentThreadAllocatedBytes();
+        this.wallNanos = -1;
+        this.cpuNanos = this.startCpuNanos < 0 ? -1 : 0;
+        this.allocatedBytes = this.startAllocatedBytes < 0 ? -1 : 0;
+    }
+
+    /**
+     * Returns the metrics of the test running on the current thread.
+     *
+     * @return the metrics of the current test, or {@code null} if no test is being measured
+     */
+    static TestMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the metrics of the test running on the current thread.
+     *
+     * @param metrics the metrics of the current test, or {@code null} to clear them
+     */
+    static void setCurrent(TestMetrics metrics) {
+        if (metrics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(metrics);
+        }
+    }
+
+    /**
+     * Stops measuring the test. Must be called on the thread that started the test.
+     */
+    synchronized void finish() {
+        this.wallNanos = System.nanoTime() - this.startNanos;
+        add(this.startCpuNanos, currentThreadCpuTime(), this.startAllocatedBytes, currentThreadAllocatedBytes());
+    }
+
+    /**
+     * Adds the resources used by another thread that ran part of the test.
+     *
+     * @param startCpuNanos       the CPU time of the thread when it started running the test
+     * @param endCpuNanos         the CPU time of the thread when it stopped running the test
+     * @param startAllocatedBytes the bytes allocated by the thread when it started running the test
+     * @param endAllocatedBytes   the bytes allocated by the thread when it stopped running the test
+     */
+    synchronized void add(long startCpuNanos, long endCpuNanos, long startAllocatedBytes, long endAllocatedBytes) {
+        if (this.cpuNanos >= 0 && startCpuNanos >= 0 && endCpuNanos >= 0) {
+            this.cpuNanos += endCpuNanos - startCpuNanos;
+        }
+        if (this.allocatedBytes >= 0 && startAllocatedBytes >= 0 && endAllocatedBytes >= 0) {
+            this.allocatedBytes += endAllocatedBytes - startAllocatedBytes;
+        }
+    }
+
+    /**
+     * Returns the display name of the test.
+     *
+     * @return the display name of the test
+     */
+    String getTestName() {
+        return this.testName;
+    }
+
+    /**
+     * Returns the name given to the test by its {@link TestCase} annotation.
+     *
+     * @return the name of the test case, or {@code null} if the test has no {@link TestCase} annotation
+     */
+    String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the wall-clock time the test took.
+     *
+     * @return the wall-clock time in nanoseconds, or -1 if the test has not finished
+     */
+    synchronized long getWallNanos() {
+        return this.wallNanos;
+    }
+
+    /**
+     * Returns the CPU time used by the test.
+     *
+     * @return the CPU time in nanoseconds, or -1 if it cannot be measured
+     */
+    synchronized long getCpuNanos() {
+        return this.cpuNanos;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the test.
+     *
+     * @return the number of bytes allocated, or -1 if it cannot be measured
+     */
+    synchronized long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    /**
+     * Sets whether some of the output of the test was dropped because it went over the output limit.
+     *
+     * @param outputTruncated whether the output of the test was truncated
+     */
+    synchronized void setOutputTruncated(boolean outputTruncated) {
+        this.outputTruncated = outputTruncated;
+    }
+
+    /**
+     * Returns whether some of the output of the test was dropped because it went over the output limit.
+     *
+     * @return true if the output of the test was truncated, false otherwise
+     */
+    synchronized boolean isOutputTruncated() {
+        return this.outputTruncated;
+    }
+
+    /**
+     * Returns the CPU time used by the current thread so far.
+     *
+     * @return the CPU time in nanoseconds, or -1 if it cannot be measured
+     */
+    static long currentThreadCpuTime() {
+        return THREADS.isThreadCpuTimeEnabled() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Returns the CPU time used by a thread so far.
+     *
+     * @param thread the thread, which must still be alive
+     * @return the CPU time in nanoseconds, or -1 if it cannot be measured
+     */
+    static long threadCpuTime(Thread thread) {
+        return THREADS.isThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled()
+            ? THREADS.getThreadCpuTime(thread.getId())
+            : -1;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     *
+     * @return the number of bytes allocated, or -1 if it cannot be measured
+     */
+    static long currentThreadAllocatedBytes() {
+        return threadAllocatedBytes(Thread.currentThread());
+    }
+
+    /**
+     * Returns the number of bytes allocated by a thread so far.
+     *
+     * @param thread the thread, which must still be alive
+     * @return the number of bytes allocated, or -1 if it cannot be measured
+     */
+    static long threadAllocatedBytes(Thread thread) {
+        return ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(thread.getId()) : -1;
+    }
+
+    /**
+     * Writes the metrics of a list of tests to a file as JSON. Measurements that
+     * are not available are left out. Tests whose output was truncated are marked
+     * with {@code "output_truncated": true}.
+     *
+     * @param metrics the metrics of the tests
+     * @param file    the file to write the metrics to
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    static void write(List<TestMetrics> metrics, File file) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+            StandardCharsets.UTF_8))) {
+            JsonWriter json = new JsonWriter(writer, 2);
+            json.beginObject().name("tests").beginArray();
+            for (TestMetrics test : metrics) {
+                json.beginObject().name("test").value(test.getTestName());
+                if (test.getName() != null) {
+                    json.name("name").value(test.getName());
+                }
+                writeIfMeasured(json, "wall_time_ns", test.getWallNanos());
+                writeIfMeasured(json, "cpu_time_ns", test.getCpuNanos());
+                writeIfMeasured(json, "allocated_bytes", test.getAllocatedBytes());
+                if (test.isOutputTruncated()) {
+                    json.name("output_truncated").value(true);
+                }
+                json.endObject();
+            }
+            json.endArray().endObject();
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a measurement, unless it is not available.
+     *
+     * @param json  the writer to write the measurement to
+     * @param key   the name of the measurement
+     * @param value the measurement, or -1 if it is not available
+     * @throws IOException if the measurement cannot be written
+     */
+    private static void writeIfMeasured(JsonWriter json, String key, long value) throws IOException {
+        if (value >= 0) {
+            json.name(key).value(value);
+        }
+    }
+
+    /**
+     * Returns the thread management interface of the JVM, with allocation measurement
+     * turned on, if the JVM supports it.
+     *
+     * @return the thread management interface, or {@code null} if allocated bytes cannot be measured
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threads;
+    }
+
+}
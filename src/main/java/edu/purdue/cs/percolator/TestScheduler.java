@@ -0,0 +1,352 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.FixMethodOrder;
+import org.junit.runner.Description;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.RunnerScheduler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The {@link TestScheduler} class decides the order the tests of a grading run are started in,
+ * and whether there is still time to start them.
+ * <p>
+ * Tests that run one at a time are started in order of their expected points per second: the
+ * points of their {@link TestCase} divided by how long they took in earlier runs, as remembered
+ * by a {@link DurationHistory}. Tests that run on several threads are instead started longest
+ * first, so that no thread is left with a slow test at the end while the others sit idle.
+ * Tests that have never run are expected to take as long as the average test. Test suites are
+ * ordered the same way, by the total points and expected duration of their tests, but the tests
+ * of a suite always run together so that its class-level setup and teardown work as usual.
+ * The tests of a suite annotated with {@link FixMethodOrder} keep the order it asks for.
+ * The order the results are reported in does not change.
+ * <p>
+ * If there is a time budget, a test is not started once the budget has run out, or if it is
+ * expected to take longer than the time that is left. It is reported as failed with the message
+ * {@value #NOT_RUN_MESSAGE} instead. A test that is running when the budget runs out is stopped
+ * as if it had reached its time limit.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class TestScheduler {
+
+    /**
+     * The failure message of a test that was not started because the time budget ran out.
+     */
+    static final String NOT_RUN_MESSAGE = "not run (time budget)";
+
+    /**
+     * A scheduler that runs each child on the current thread as soon as it is scheduled,
+     * like the default scheduler of a {@link ParentRunner}.
+     */
+    static final RunnerScheduler SERIAL = new RunnerScheduler() {
+        @Override
+        public void schedule(Runnable childStatement) {
+            childStatement.run();
+        }
+
+        @Override
+        public void finished() {
+        }
+    };
+
+    /**
+     * How long a test is expected to take if there is no history at all, in nanoseconds.
+     */
+    private static final long DEFAULT_EXPECTED_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The durations of the tests in earlier runs, or {@code null} if there is no history.
+     */
+    private final DurationHistory history;
+
+    /**
+     * The time budget for the run in nanoseconds, or 0 if there is no time budget.
+     */
+    private final long budgetNanos;
+
+    /**
+     * The display names of the tests that were not started because the time budget ran out.
+     */
+    private final Set<String> notRun;
+
+    /**
+     * The time limits of the tests whose time limit was lowered to fit the time budget,
+     * in nanoseconds, keyed by the display name of the test.
+     */
+    private final Map<String, Long> budgetLimits;
+
+    /**
+     * The time the run started, in nanoseconds.
+     */
+    private volatile long startNanos;
+
+    /**
+     * Creates a new {@link TestScheduler}.
+     *
+     * @param history      the durations of the tests in earlier runs, or {@code null} for no history
+     * @param budgetMillis the time budget for the run in milliseconds, or 0 for no time budget
+     */
+    TestScheduler(DurationHistory history, long budgetMillis) {
+        this.history = history;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.notRun = ConcurrentHashMap.newKeySet();
+        this.budgetLimits = new ConcurrentHashMap<>();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts the time budget. Called right before the tests start running.
+     */
+    void start() {
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the time left in the budget.
+     *
+     * @return the time left in milliseconds, which is 0 once the budget has run out,
+     * or -1 if there is no time budget
+     */
+    long remainingMillis() {
+        if (this.budgetNanos == 0) {
+            return -1;
+        }
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(this.budgetNanos - (System.nanoTime() - this.startNanos)), 0);
+    }
+
+    /**
+     * Decides whether a test can be started within the time budget. If it cannot, the test
+     * is remembered as not run, so its duration is not recorded in the history.
+     *
+     * @param testName the display name of the test
+     * @return true if the test should be started, false if it should be reported as not run
+     */
+    boolean tryStart(String testName) {
+        long remaining = remainingMillis();
+        if (remaining < 0) {
+            return true;
+        }
+
+        long expected = this.history == null ? -1 : this.history.expectedNanos(testName);
+        if (remaining > 0 && expected <= TimeUnit.MILLISECONDS.toNanos(remaining)) {
+            return true;
+        }
+        this.notRun.add(testName);
+        return false;
+    }
+
+    /**
+     * Lowers the time limit of a test so that it cannot run past the end of the time budget.
+     *
+     * @param testName      the display name of the test
+     * @param timeoutMillis the time limit of the test in milliseconds, or 0 if there is no time limit
+     * @return the time limit of the test in milliseconds, or 0 if there is no time limit
+     */
+    long limitTimeout(String testName, long timeoutMillis) {
+        long remaining = remainingMillis();
+        if (remaining < 0) {
+            return timeoutMillis;
+        }
+
+        remaining = Math.max(remaining, 1);
+        if (timeoutMillis > 0 && timeoutMillis <= remaining) {
+            return timeoutMillis;
+        }
+        this.budgetLimits.put(testName, TimeUnit.MILLISECONDS.toNanos(remaining));
+        return remaining;
+    }
+
+    /**
+     * Records the durations of the tests that ran in the history, and saves the history.
+     * A test that was stopped because the time budget ran out would have taken longer than it
+     * ran for, so its expected duration is raised to at least that long instead of averaged.
+     *
+     * @param metrics the metrics of the tests in the run
+     */
+    void recordDurations(List<TestMetrics> metrics) {
+        if (this.history == null) {
+            return;
+        }
+
+        for (TestMetrics test : metrics) {
+            String testName = test.getTestName();
+            if (this.notRun.contains(testName)) {
+                continue;
+            }
+            Long budgetLimit = this.budgetLimits.get(testName);
+            if (budgetLimit != null && test.getWallNanos() >= budgetLimit) {
+                this.history.recordAtLeast(testName, test.getWallNanos());
+            } else {
+                this.history.record(testName, test.getWallNanos());
+            }
+        }
+        this.history.save();
+    }
+
+    /**
+     * Wraps the scheduler of a runner so that its children are started in order of their
+     * expected points per second.
+     *
+     * @param runner    the runner whose children are scheduled
+     * @param scheduler the scheduler that runs the children
+     * @return the scheduler that starts the children in order
+     */
+    RunnerScheduler inOrder(ParentRunner<?> runner, RunnerScheduler scheduler) {
+        return new OrderedScheduler(runner, scheduler, this::pointsPerSecond);
+    }
+
+    /**
+     * Wraps the scheduler of a runner that runs its children on several threads, so that the
+     * children expected to take the longest are started first.
+     *
+     * @param runner    the runner whose children are scheduled
+     * @param scheduler the scheduler that runs the children
+     * @return the scheduler that starts the children longest first
+     */
+    RunnerScheduler longestFirst(ParentRunner<?> runner, RunnerScheduler scheduler) {
+        return new OrderedScheduler(runner, scheduler, description -> totals(description)[1]);
+    }
+
+    /**
+     * Returns the expected points per second of a test, or of all of the tests in a suite.
+     *
+     * @param description the {@link Description} of the test or suite
+     * @return the expected points per second
+     */
+    private double pointsPerSecond(Description description) {
+        double[] totals = totals(description);
+        return totals[0] / Math.max(totals[1] / TimeUnit.SECONDS.toNanos(1), 1e-3);
+    }
+
+    /**
+     * Returns the points and expected duration of a test, or of every test in a suite.
+     *
+     * @param description the {@link Description} of the test or suite
+     * @return the total points and the total expected duration in nanoseconds
+     */
+    private double[] totals(Description description) {
+        double[] totals = new double[2];
+        addTotals(description, totals);
+        return totals;
+    }
+
+    /**
+     * Adds the points and expected duration of a test, or of every test in a suite, to the totals.
+     *
+     * @param description the {@link Description} of the test or suite
+     * @param totals      the total points and the total expected duration in nanoseconds
+     */
+    private void addTotals(Description description, double[] totals) {
+        if (description.isTest()) {
+            TestCase testCase = description.getAnnotation(TestCase.class);
+            totals[0] += testCase == null ? 0 : testCase.points();
+            totals[1] += expectedNanos(description.getDisplayName());
+        }
+        for (Description child : description.getChildren()) {
+            addTotals(child, totals);
+        }
+    }
+
+    /**
+     * Returns how long a test is expected to take.
+     *
+     * @param testName the display name of the test
+     * @return the expected duration in nanoseconds
+     */
+    private long expectedNanos(String testName) {
+        long expected = this.history == null ? -1 : this.history.expectedNanos(testName);
+        if (expected < 0) {
+            expected = this.history == null ? -1 : this.history.averageNanos();
+        }
+        return expected < 0 ? DEFAULT_EXPECTED_NANOS : expected;
+    }
+
+    /**
+     * The {@link OrderedScheduler} class collects the children of a {@link ParentRunner} as they
+     * are scheduled, and hands them to another scheduler once all of them are known, starting with
+     * the child with the highest priority. The children of a test suite annotated with
+     * {@link FixMethodOrder} are handed over in their original order.
+     */
+    private final class OrderedScheduler implements RunnerScheduler {
+
+        /**
+         * The runner whose children are scheduled.
+         */
+        private final ParentRunner<?> runner;
+
+        /**
+         * The scheduler that runs the children.
+         */
+        private final RunnerScheduler scheduler;
+
+        /**
+         * The children that have been scheduled, in the order of the runner's children.
+         */
+        private final List<Runnable> children;
+
+        /**
+         * The priority of a child, given its {@link Description}.
+         */
+        private final ToDoubleFunction<Description> priority;
+
+        /**
+         * Whether the children must keep their original order.
+         */
+        private final boolean fixedOrder;
+
+        /**
+         * Creates a new {@link OrderedScheduler}.
+         *
+         * @param runner    the runner whose children are scheduled
+         * @param scheduler the scheduler that runs the children
+         * @param priority  the priority of a child, given its {@link Description}
+         */
+        OrderedScheduler(ParentRunner<?> runner, RunnerScheduler scheduler,
+                         ToDoubleFunction<Description> priority) {
+            this.runner = runner;
+            this.scheduler = scheduler;
+            this.children = new ArrayList<>();
+            this.priority = priority;
+            this.fixedOrder = runner.getTestClass().getAnnotation(FixMethodOrder.class) != null;
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            this.children.add(childStatement);
+        }
+
+        @Override
+        public void finished() {
+            // Children are scheduled in the same order as they appear in the runner's description
+            List<Description> descriptions = this.runner.getDescription().getChildren();
+            List<Integer> order = new ArrayList<>();
+            double[] priorities = new double[this.children.size()];
+            for (int i = 0; i < this.children.size(); i++) {
+                order.add(i);
+                if (!this.fixedOrder && descriptions.size() == this.children.size()) {
+                    priorities[i] = this.priority.applyAsDouble(descriptions.get(i));
+                }
+            }
+            // The sort is stable, so children with the same priority keep their original order
+            order.sort(Comparator.comparingDouble((Integer i) -> priorities[i]).reversed());
+
+            for (int i : order) {
+                this.scheduler.schedule(this.children.get(i));
+            }
+            this.children.clear();
+            this.scheduler.finished();
+        }
+
+    }
+
+}
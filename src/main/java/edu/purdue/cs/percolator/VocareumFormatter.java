@@ -3,8 +3,9 @@ package edu.purdue.cs.percolator;
 import com.github.tkutcher.jgrade.Grader;
 import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
 
+import java.io.PrintStream;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.DoubleStream;
 
 /**
  * The {@link VocareumFormatter} class formats grading results
@@ -13,7 +14,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * @author Kedar Abhyankar
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.2
+ * @version 1.3
  * @since 1.2
  */
 class VocareumFormatter implements OutputFormatter {
@@ -32,89 +33,83 @@ class VocareumFormatter implements OutputFormatter {
 
     /**
      * Prints the contents of the {@link Grader} object
-     * to standard out/error.
+     * to the results and report streams.
+     * <p>
+     * The report is rendered in a single pass over the test cases into a buffer,
+     * which is then printed all at once.
      *
      * @param grader the test case grader
+     * @param out    the stream for the grading results
+     * @param err    the stream for the grading report
      */
-    public void printGradingResults(Grader grader) {
+    public void printGradingResults(Grader grader, PrintStream out, PrintStream err) {
         List<GradedTestResult> testCases = grader.getGradedTestResults();
 
         // Extract Code Style result, if applicable
         GradedTestResult codeStyle = null;
-        if (testCases.get(testCases.size() - 1).getName().equals(StyleChecker.TEST_RESULT_NAME)) {
+        if (!testCases.isEmpty()
+            && testCases.get(testCases.size() - 1).getName().equals(StyleChecker.TEST_RESULT_NAME)) {
             codeStyle = testCases.get(testCases.size() - 1);
             testCases.remove(codeStyle);
         }
 
-        printGradingReport(testCases, codeStyle);
-        printGradingResults(testCases, codeStyle);
-    }
-
-    /**
-     * Prints the grading report to {@link System#err}.
-     *
-     * @param testCases the test case results
-     * @param codeStyle the code style result
-     */
-    private static void printGradingReport(List<GradedTestResult> testCases, GradedTestResult codeStyle) {
-        System.err.println(TEST_OUTPUT_HEADER);
-
-        // TEST CASES (passed)
-        AtomicInteger numTestCasesPassed = new AtomicInteger();
-        testCases.stream().filter(GradedTestResult::passed).forEach(r -> {
+        String newline = System.lineSeparator();
+        StringBuilder passed = new StringBuilder(TEST_OUTPUT_HEADER).append(newline);
+        StringBuilder failed = new StringBuilder();
+        int numTestCasesPassed = 0;
+        int numTestCasesFailed = 0;
+        // DoubleStream.sum compensates for rounding errors, matching the Gradescope total
+        DoubleStream.Builder testCasesScores = DoubleStream.builder();
+
+        for (GradedTestResult r : testCases) {
+            testCasesScores.add(r.getScore());
+            StringBuilder section = r.passed() ? passed : failed;
             if (!r.getNumber().isBlank()) {
-                System.err.printf("%s) ", r.getNumber());
+                section.append(r.getNumber()).append(") ");
             }
-            System.err.printf("PASSED: %s\n", r.getName());
-            numTestCasesPassed.incrementAndGet();
-        });
 
-        if (numTestCasesPassed.get() != 0) {
-            System.err.print("\n");
+            if (r.passed()) {
+                section.append("PASSED: ").append(r.getName()).append('\n');
+                numTestCasesPassed++;
+            } else {
+                section.append("FAILED: ").append(r.getName()).append('\n');
+                section.append(r.getOutput()).append(newline);
+                numTestCasesFailed++;
+            }
         }
 
-        // TEST CASES (failed)
-        AtomicInteger numTestCasesFailed = new AtomicInteger();
-        testCases.stream().filter(r -> !r.passed()).forEach(r -> {
-            if (!r.getNumber().isBlank()) {
-                System.err.printf("%s) ", r.getNumber());
-            }
-            System.err.printf("FAILED: %s\n", r.getName());
-            System.err.println(r.getOutput());
-            numTestCasesFailed.incrementAndGet();
-        });
+        // TEST CASES (passed, then failed)
+        StringBuilder report = passed;
+        if (numTestCasesPassed != 0) {
+            report.append('\n');
+        }
+        report.append(failed);
 
-        if (numTestCasesFailed.get() == 0) {
-            System.err.println("ALL TESTS PASS!");
+        if (numTestCasesFailed == 0) {
+            report.append("ALL TESTS PASS!").append(newline);
         } else {
-            System.err.printf("%d TEST%s FAILED.\n",
-                numTestCasesFailed.get(),
-                numTestCasesFailed.get() == 1 ? "" : "S"
-            );
+            report.append(numTestCasesFailed).append(" TEST").append(numTestCasesFailed == 1 ? "" : "S")
+                .append(" FAILED.\n");
         }
 
         // CODE STYLE
         if (codeStyle != null) {
-            System.err.println("\n\n" + CODE_STYLE_HEADER);
-            System.err.println(codeStyle.getOutput());
+            report.append("\n\n").append(CODE_STYLE_HEADER).append(newline);
+            report.append(codeStyle.getOutput()).append(newline);
         }
-    }
 
-    /**
-     * Prints the grading results to {@link System#out}.
-     *
-     * @param testCases the test case results
-     * @param codeStyle the code style result
-     */
-    private static void printGradingResults(List<GradedTestResult> testCases, GradedTestResult codeStyle) {
-        double testCasesScore = testCases.stream()
-            .mapToDouble(GradedTestResult::getScore)
-            .sum();
-        System.out.println("Test Cases," + testCasesScore);
+        err.print(report);
+        err.flush();
 
+        // GRADING RESULTS
+        StringBuilder results = new StringBuilder("Test Cases,").append(testCasesScores.build().sum())
+            .append(newline);
         if (codeStyle != null) {
-            System.out.println(StyleChecker.TEST_RESULT_NAME + "," + codeStyle.getScore());
+            results.append(StyleChecker.TEST_RESULT_NAME).append(',').append(codeStyle.getScore()).append(newline);
         }
+
+        out.print(results);
+        out.flush();
     }
 
 }
@@ -0,0 +1,172 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.runners.model.Statement;
+import org.junit.runners.model.TestTimedOutException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The {@link WatchdogStatement} class runs a test on its own thread and watches it.
+ * If the test does not finish within its time limit, the test thread is interrupted.
+ * If it still has not finished after a short grace period (e.g., because it is stuck in
+ * an infinite loop that ignores interrupts), the thread is abandoned so that the
+ * remaining tests can run. In both cases, the test fails with a {@link TestTimedOutException}.
+ * <p>
+ * If the test has an allocation limit, the number of bytes allocated by the test thread is
+ * sampled while it runs. Once the test has allocated more than its limit, the test thread is
+ * stopped in the same way, and the test fails with an {@link AssertionError} saying how much
+ * it allocated. Only allocations made by the test thread itself are counted, and the limit is
+ * not enforced if the JVM cannot measure allocations.
+ * <p>
+ * The test thread is a daemon thread, so an abandoned test cannot keep the JVM alive
+ * after grading is done. The CPU time and bytes allocated by the test thread are added to the
+ * {@link TestMetrics} of the test, if it is being measured.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class WatchdogStatement extends Statement {
+
+    /**
+     * How long to wait for the test thread to stop after it has been interrupted, in milliseconds.
+     */
+    private static final long INTERRUPT_GRACE_MILLIS = 100;
+
+    /**
+     * How often to sample the bytes allocated by the test thread, in milliseconds.
+     */
+    private static final long ALLOCATION_SAMPLE_MILLIS = 10;
+
+    /**
+     * The statement that runs the test.
+     */
+    private final Statement next;
+
+    /**
+     * The name of the test, used to name the test thread.
+     */
+    private final String testName;
+
+    /**
+     * The time limit for the test, in milliseconds, or 0 if there is no time limit.
+     */
+    private final long timeoutMillis;
+
+    /**
+     * The maximum number of bytes the test may allocate, or 0 if there is no allocation limit.
+     */
+    private final long maxAllocatedBytes;
+
+    /**
+     * Creates a new {@link WatchdogStatement}.
+     *
+     * @param next              the statement that runs the test
+     * @param testName          the name of the test
+     * @param timeoutMillis     the time limit for the test, in milliseconds, or 0 for no time limit
+     * @param maxAllocatedBytes the maximum number of bytes the test may allocate, or 0 for no limit
+     */
+    WatchdogStatement(Statement next, String testName, long timeoutMillis, long maxAllocatedBytes) {
+        this.next = next;
+        this.testName = testName;
+        this.timeoutMillis = timeoutMillis;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+    }
+
+    /**
+     * Runs the test and waits for it to finish, time out or exceed its allocation limit.
+     *
+     * @throws Throwable the error thrown by the test, a {@link TestTimedOutException} if the test
+     *                   did not finish within its time limit, or an {@link AssertionError} if the
+     *                   test allocated more than its limit
+     */
+    @Override
+    public void evaluate() throws Throwable {
+        final Throwable[] error = new Throwable[1];
+        final long[] allocated = {-1};
+        final TestMetrics metrics = TestMetrics.current();
+        final AtomicBoolean measured = new AtomicBoolean(metrics == null);
+        Thread thread = new Thread(() -> {
+            try {
+                this.next.evaluate();
+            } catch (Throwable t) {
+                error[0] = t;
+            } finally {
+                allocated[0] = TestMetrics.currentThreadAllocatedBytes();
+                // The thread is new, so everything it has used so far was used by the test
+                if (measured.compareAndSet(false, true)) {
+                    metrics.add(0, TestMetrics.currentThreadCpuTime(), 0, allocated[0]);
+                }
+            }
+        }, "percolator-watched-" + this.testName);
+        thread.setDaemon(true);
+        thread.start();
+
+        Throwable failure = watch(thread);
+        if (failure != null) {
+            StackTraceElement[] stackTrace = thread.getStackTrace();
+            thread.interrupt();
+            thread.join(INTERRUPT_GRACE_MILLIS);
+            if (measured.compareAndSet(false, true)) {
+                metrics.add(0, TestMetrics.threadCpuTime(thread), 0, TestMetrics.threadAllocatedBytes(thread));
+            }
+
+            failure.setStackTrace(stackTrace);
+            throw failure;
+        }
+
+        // Allocations made after the last sample are only known once the test has finished
+        if (this.maxAllocatedBytes > 0 && allocated[0] > this.maxAllocatedBytes) {
+            throw allocationLimitExceeded(allocated[0]);
+        }
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    /**
+     * Waits for the test thread to finish, checking its limits while it runs.
+     *
+     * @param thread the test thread
+     * @return the failure if the test went over one of its limits, or {@code null} if it finished in time
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    private Throwable watch(Thread thread) throws InterruptedException {
+        if (this.maxAllocatedBytes == 0) {
+            thread.join(this.timeoutMillis);
+            return thread.isAlive() ? new TestTimedOutException(this.timeoutMillis, TimeUnit.MILLISECONDS) : null;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeoutMillis);
+        while (thread.isAlive()) {
+            long wait = ALLOCATION_SAMPLE_MILLIS;
+            if (this.timeoutMillis > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return new TestTimedOutException(this.timeoutMillis, TimeUnit.MILLISECONDS);
+                }
+                wait = Math.min(wait, remaining);
+            }
+            thread.join(wait);
+
+            long allocated = TestMetrics.threadAllocatedBytes(thread);
+            if (allocated > this.maxAllocatedBytes) {
+                return allocationLimitExceeded(allocated);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the failure for a test that allocated more than its limit.
+     *
+     * @param allocated the number of bytes the test allocated
+     * @return the failure
+     */
+    private AssertionError allocationLimitExceeded(long allocated) {
+        return new AssertionError(String.format("test allocated %d bytes of memory, more than its limit of %d bytes",
+            allocated, this.maxAllocatedBytes));
+    }
+
+}
@@ -0,0 +1,199 @@
+package edu.purdue.cs.percolator.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * The {@link CharCursor} class reads the characters of a {@link Reader} one at a time through
+ * a fixed-size buffer, and keeps track of the line and column of the current character.
+ * It is used to compare large outputs in constant memory.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class CharCursor {
+
+    /**
+     * The number of characters to read from the {@link Reader} at a time.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The reader to read the characters from.
+     */
+    private final Reader reader;
+
+    /**
+     * The characters that have been read but not consumed yet.
+     */
+    private final char[] buffer;
+
+    /**
+     * The index of the next character in the buffer.
+     */
+    private int position;
+
+    /**
+     * The number of characters in the buffer.
+     */
+    private int limit;
+
+    /**
+     * The line of the next character, starting at 1.
+     */
+    private long line;
+
+    /**
+     * The column of the next character, starting at 1.
+     */
+    private long column;
+
+    /**
+     * The line of the last character that was consumed.
+     */
+    private long lastLine;
+
+    /**
+     * The column of the last character that was consumed.
+     */
+    private long lastColumn;
+
+    /**
+     * The line of the marked character.
+     */
+    private long markLine;
+
+    /**
+     * The column of the marked character.
+     */
+    private long markColumn;
+
+    /**
+     * Creates a new {@link CharCursor}.
+     *
+     * @param reader the reader to read the characters from
+     */
+    CharCursor(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.line = 1;
+        this.column = 1;
+        this.lastLine = 1;
+        this.lastColumn = 1;
+    }
+
+    /**
+     * Returns the next character without consuming it.
+     *
+     * @return the next character, or -1 at the end of the input
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    int peek() {
+        if (this.position == this.limit && !fill()) {
+            return -1;
+        }
+        return this.buffer[this.position];
+    }
+
+    /**
+     * Consumes the next character.
+     *
+     * @return the next character, or -1 at the end of the input
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    int next() {
+        int c = peek();
+        this.lastLine = this.line;
+        this.lastColumn = this.column;
+        if (c >= 0) {
+            this.position++;
+            if (c == '\n') {
+                this.line++;
+                this.column = 1;
+            } else {
+                this.column++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Consumes the next character, treating a {@code \r\n} line ending as a single {@code \n}.
+     *
+     * @return the next character, or -1 at the end of the input
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    int nextNormalized() {
+        int c = next();
+        if (c == '\r' && peek() == '\n') {
+            long line = this.lastLine;
+            long column = this.lastColumn;
+            c = next();
+            this.lastLine = line;
+            this.lastColumn = column;
+        }
+        return c;
+    }
+
+    /**
+     * Consumes whitespace until the next character is not whitespace.
+     *
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    void skipWhitespace() {
+        int c;
+        while ((c = peek()) >= 0 && StringUtilities.isWhitespace((char) c)) {
+            next();
+        }
+    }
+
+    /**
+     * Returns the position of the last character that was consumed, for use in assertion messages.
+     *
+     * @return the line and column of the last character
+     */
+    String lastPosition() {
+        return "line " + this.lastLine + ", column " + this.lastColumn;
+    }
+
+    /**
+     * Marks the position of the next character, so it can be reported later.
+     */
+    void mark() {
+        this.markLine = this.line;
+        this.markColumn = this.column;
+    }
+
+    /**
+     * Returns the position of the marked character, for use in assertion messages.
+     *
+     * @return the line and column of the marked character
+     */
+    String markedPosition() {
+        return "line " + this.markLine + ", column " + this.markColumn;
+    }
+
+    /**
+     * Reads more characters into the buffer.
+     *
+     * @return true if characters were read, false at the end of the input
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    private boolean fill() {
+        try {
+            int read;
+            do {
+                read = this.reader.read(this.buffer, 0, this.buffer.length);
+            } while (read == 0);
+
+            this.position = 0;
+            this.limit = Math.max(read, 0);
+            return read > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,343 @@
+package edu.purdue.cs.percolator.util;
+
+import org.junit.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * The {@link ComparisonUtilities} class contains useful tools for comparing large outputs
+ * without loading them into memory.
+ * <p>
+ * Unlike the methods in {@link StringUtilities}, which take whole {@link String}s, these methods
+ * read the expected and actual outputs from a {@link Reader}, an {@link InputStream} or a file,
+ * a little at a time, and stop at the first difference. Expected output files are memory-mapped
+ * rather than read onto the heap. Streams and files are decoded as UTF-8.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public final class ComparisonUtilities {
+
+    /**
+     * The {@link Mode} enum specifies which differences between two outputs are ignored.
+     */
+    public enum Mode {
+
+        /**
+         * The outputs must be exactly the same.
+         */
+        EXACT,
+
+        /**
+         * The outputs must be the same, except that {@code \r\n} and {@code \n} line endings are equal.
+         */
+        IGNORE_LINE_ENDINGS,
+
+        /**
+         * The outputs must be the same, ignoring all whitespace.
+         */
+        IGNORE_WHITESPACE,
+
+        /**
+         * The outputs must be "fuzzy-equal", ignoring all whitespace and capitalization,
+         * the same as {@link StringUtilities#fuzzyEquals(String, String)}.
+         */
+        FUZZY
+
+    }
+
+    /**
+     * Private default constructor so no objects can be created of this type.
+     */
+    private ComparisonUtilities() {
+    }
+
+    /**
+     * Opens a file as a {@link Reader} that reads the file through memory-mapped windows.
+     *
+     * @param path the file to open
+     * @return a {@link Reader} for the file, which must be closed by the caller
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static Reader openMapped(Path path) {
+        try {
+            return new InputStreamReader(new MappedFileInputStream(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Tests if two outputs are equal, ignoring the differences given by the mode.
+     * Neither {@link Reader} is closed.
+     *
+     * @param expected the expected output
+     * @param actual   the actual output
+     * @param mode     the differences to ignore
+     * @return true if the outputs are equal, false otherwise
+     * @throws UncheckedIOException if an output cannot be read
+     */
+    public static boolean contentEquals(Reader expected, Reader actual, Mode mode) {
+        return mismatch(new CharCursor(expected), new CharCursor(actual), mode) == null;
+    }
+
+    /**
+     * Asserts that two outputs are equal, ignoring the differences given by the mode.
+     * If they are not, the assertion message shows where they first differ.
+     * Neither {@link Reader} is closed.
+     *
+     * @param message  the assertion message to display
+     * @param expected the expected output
+     * @param actual   the actual output
+     * @param mode     the differences to ignore
+     * @throws AssertionError       if the outputs are not equal
+     * @throws UncheckedIOException if an output cannot be read
+     */
+    public static void assertContentEquals(String message, Reader expected, Reader actual, Mode mode)
+        throws AssertionError {
+        fail(message, mismatch(new CharCursor(expected), new CharCursor(actual), mode));
+    }
+
+    /**
+     * Asserts that two outputs are equal, ignoring the differences given by the mode.
+     * If they are not, the assertion message shows where they first differ.
+     * Neither {@link Reader} is closed.
+     *
+     * @param expected the expected output
+     * @param actual   the actual output
+     * @param mode     the differences to ignore
+     * @throws AssertionError       if the outputs are not equal
+     * @throws UncheckedIOException if an output cannot be read
+     */
+    public static void assertContentEquals(Reader expected, Reader actual, Mode mode) throws AssertionError {
+        assertContentEquals(null, expected, actual, mode);
+    }
+
+    /**
+     * Asserts that an output is equal to the contents of a file, ignoring the differences
+     * given by the mode. If they are not, the assertion message shows where they first differ.
+     * The stream is not closed.
+     *
+     * @param message  the assertion message to display
+     * @param expected the file with the expected output
+     * @param actual   the actual output
+     * @param mode     the differences to ignore
+     * @throws AssertionError       if the outputs are not equal
+     * @throws UncheckedIOException if an output cannot be read
+     */
+    public static void assertContentEquals(String message, Path expected, InputStream actual, Mode mode)
+        throws AssertionError {
+        try (Reader expectedReader = openMapped(expected)) {
+            assertContentEquals(message, expectedReader, new InputStreamReader(actual, StandardCharsets.UTF_8), mode);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Asserts that two outputs are equal, ignoring whitespace and allowing numbers to differ
+     * by a tolerance. Both outputs are split into words at whitespace. Words that are numbers
+     * in both outputs are equal if they differ by at most the tolerance; all other words must
+     * be exactly the same. Neither {@link Reader} is closed.
+     *
+     * @param message   the assertion message to display
+     * @param expected  the expected output
+     * @param actual    the actual output
+     * @param tolerance the largest allowed difference between two numbers
+     * @throws AssertionError       if the outputs are not equal
+     * @throws UncheckedIOException if an output cannot be read
+     */
+    public static void assertNumericEquals(String message, Reader expected, Reader actual, double tolerance)
+        throws AssertionError {
+        if (tolerance < 0 || Double.isNaN(tolerance)) {
+            throw new IllegalArgumentException("tolerance cannot be negative.");
+        }
+
+        fail(message, numericMismatch(new CharCursor(expected), new CharCursor(actual), tolerance));
+    }
+
+    /**
+     * Asserts that an output is equal to the contents of a file, ignoring whitespace and allowing
+     * numbers to differ by a tolerance, as described in
+     * {@link #assertNumericEquals(String, Reader, Reader, double)}. The stream is not closed.
+     *
+     * @param message   the assertion message to display
+     * @param expected  the file with the expected output
+     * @param actual    the actual output
+     * @param tolerance the largest allowed difference between two numbers
+     * @throws AssertionError       if the outputs are not equal
+     * @throws UncheckedIOException if an output cannot be read
+     */
+    public static void assertNumericEquals(String message, Path expected, InputStream actual, double tolerance)
+        throws AssertionError {
+        try (Reader expectedReader = openMapped(expected)) {
+            assertNumericEquals(message, expectedReader, new InputStreamReader(actual, StandardCharsets.UTF_8),
+                tolerance);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fails with a message if there is a difference.
+     *
+     * @param message    the assertion message to display
+     * @param difference the description of the first difference, or {@code null} if there is none
+     * @throws AssertionError if there is a difference
+     */
+    private static void fail(String message, String difference) throws AssertionError {
+        if (difference != null) {
+            Assert.fail((message == null ? "" : message + " ") + difference);
+        }
+    }
+
+    /**
+     * Finds the first difference between two outputs, ignoring the differences given by the mode.
+     *
+     * @param expected the expected output
+     * @param actual   the actual output
+     * @param mode     the differences to ignore
+     * @return a description of the first difference, or {@code null} if the outputs are equal
+     */
+    private static String mismatch(CharCursor expected, CharCursor actual, Mode mode) {
+        boolean skipWhitespace = mode == Mode.IGNORE_WHITESPACE || mode == Mode.FUZZY;
+        while (true) {
+            if (skipWhitespace) {
+                expected.skipWhitespace();
+                actual.skipWhitespace();
+            }
+
+            int e = mode == Mode.IGNORE_LINE_ENDINGS ? expected.nextNormalized() : expected.next();
+            int a = mode == Mode.IGNORE_LINE_ENDINGS ? actual.nextNormalized() : actual.next();
+            if (e != a && (mode != Mode.FUZZY || e < 0 || a < 0
+                || Character.toLowerCase((char) e) != Character.toLowerCase((char) a))) {
+                return describe(expected.lastPosition(), actual.lastPosition(), describe(e), describe(a));
+            } else if (e < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Finds the first difference between two outputs, word by word, allowing numbers
+     * to differ by a tolerance.
+     *
+     * @param expected  the expected output
+     * @param actual    the actual output
+     * @param tolerance the largest allowed difference between two numbers
+     * @return a description of the first difference, or {@code null} if the outputs are equal
+     */
+    private static String numericMismatch(CharCursor expected, CharCursor actual, double tolerance) {
+        StringBuilder expectedWord = new StringBuilder();
+        StringBuilder actualWord = new StringBuilder();
+        while (true) {
+            boolean expectedEnd = !nextWord(expected, expectedWord);
+            boolean actualEnd = !nextWord(actual, actualWord);
+            if (expectedEnd && actualEnd) {
+                return null;
+            } else if (expectedEnd || actualEnd || !wordsEqual(expectedWord, actualWord, tolerance)) {
+                return describe(expected.markedPosition(), actual.markedPosition(),
+                    expectedEnd ? "<end>" : "\"" + expectedWord + "\"",
+                    actualEnd ? "<end>" : "\"" + actualWord + "\"");
+            }
+        }
+    }
+
+    /**
+     * Reads the next word, skipping any whitespace in front of it.
+     *
+     * @param cursor the output to read from
+     * @param word   the builder to read the word into
+     * @return true if a word was read, false at the end of the output
+     */
+    private static boolean nextWord(CharCursor cursor, StringBuilder word) {
+        word.setLength(0);
+        cursor.skipWhitespace();
+        cursor.mark();
+
+        int c;
+        while ((c = cursor.peek()) >= 0 && !StringUtilities.isWhitespace((char) c)) {
+            word.append((char) cursor.next());
+        }
+        return word.length() > 0;
+    }
+
+    /**
+     * Tests if two words are equal, allowing numbers to differ by a tolerance.
+     *
+     * @param expected  the expected word
+     * @param actual    the actual word
+     * @param tolerance the largest allowed difference between two numbers
+     * @return true if the words are equal, false otherwise
+     */
+    private static boolean wordsEqual(CharSequence expected, CharSequence actual, double tolerance) {
+        if (CharSequence.compare(expected, actual) == 0) {
+            return true;
+        }
+
+        Double e = parseNumber(expected);
+        Double a = parseNumber(actual);
+        return e != null && a != null && Math.abs(e - a) <= tolerance;
+    }
+
+    /**
+     * Parses a word as a number.
+     *
+     * @param word the word to parse
+     * @return the number, or {@code null} if the word is not a number
+     */
+    private static Double parseNumber(CharSequence word) {
+        char first = word.charAt(0);
+        if (!Character.isDigit(first) && first != '-' && first != '+' && first != '.') {
+            return null;
+        }
+
+        try {
+            return Double.parseDouble(word.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Describes the first difference between two outputs.
+     *
+     * @param expectedPosition the position of the difference in the expected output
+     * @param actualPosition   the position of the difference in the actual output
+     * @param expectedValue    the expected character or word
+     * @param actualValue      the actual character or word
+     * @return a description of the difference
+     */
+    private static String describe(String expectedPosition, String actualPosition,
+                                   String expectedValue, String actualValue) {
+        return String.format("first difference is at %s of expected and %s of actual: expected %s but was %s",
+            expectedPosition, actualPosition, expectedValue, actualValue);
+    }
+
+    /**
+     * Describes a single character for an assertion message.
+     *
+     * @param c the character, or -1 for the end of the output
+     * @return a description of the character
+     */
+    private static String describe(int c) {
+        if (c < 0) {
+            return "<end>";
+        } else if (c == '\n') {
+            return "'\\n'";
+        } else if (c == '\r') {
+            return "'\\r'";
+        } else if (c == '\t') {
+            return "'\\t'";
+        }
+        return "'" + (char) c + "'";
+    }
+
+}
@@ -0,0 +1,393 @@
+package edu.purdue.cs.percolator.util;
+
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * The {@link DiffUtilities} class contains useful tools for showing students how their output
+ * differs from the expected output.
+ * <p>
+ * Differences are shown as a compact unified diff of lines, with a few lines of context around
+ * each change, so large outputs still give readable feedback without huge assertion messages.
+ * The diff is computed with Myers' algorithm. If the outputs are so different that finding the
+ * smallest diff would be too expensive, everything between the common first and last lines is
+ * shown as changed instead.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public final class DiffUtilities {
+
+    /**
+     * The number of unchanged lines to show around each change.
+     */
+    private static final int CONTEXT_LINES = 3;
+
+    /**
+     * The largest number of changed lines to search for before giving up on the smallest diff.
+     */
+    private static final int MAX_EDIT_COST = 1000;
+
+    /**
+     * The largest number of lines to show in a diff.
+     */
+    private static final int MAX_DIFF_LINES = 100;
+
+    /**
+     * The largest number of characters to show for each line of a diff.
+     */
+    private static final int MAX_LINE_LENGTH = 200;
+
+    /**
+     * Private default constructor so no objects can be created of this type.
+     */
+    private DiffUtilities() {
+    }
+
+    /**
+     * Returns a unified diff of the lines of two {@link String}s. Both {@code \n} and {@code \r\n}
+     * line endings are accepted. The diff shows at most 100 lines.
+     *
+     * @param expected the expected {@link String}
+     * @param actual   the actual {@link String}
+     * @return the diff, or an empty {@link String} if the lines are the same
+     */
+    public static String diff(String expected, String actual) {
+        return diff(expected, actual, String::equals);
+    }
+
+    /**
+     * Asserts that two {@link String}s have the same lines, ignoring the difference between
+     * {@code \n} and {@code \r\n} line endings. If they do not, the assertion message contains
+     * a unified diff of the lines.
+     *
+     * @param message  the assertion message to display
+     * @param expected the expected {@link String}
+     * @param actual   the actual {@link String}
+     * @throws AssertionError if the lines are not the same
+     */
+    public static void assertLinesEqual(String message, String expected, String actual) throws AssertionError {
+        String diff = diff(expected, actual);
+        if (!diff.isEmpty()) {
+            Assert.fail(String.format("%slines differ:%n%s", message == null ? "" : message + " ", diff));
+        }
+    }
+
+    /**
+     * Asserts that two {@link String}s have the same lines, ignoring the difference between
+     * {@code \n} and {@code \r\n} line endings. If they do not, the assertion message contains
+     * a unified diff of the lines.
+     *
+     * @param expected the expected {@link String}
+     * @param actual   the actual {@link String}
+     * @throws AssertionError if the lines are not the same
+     */
+    public static void assertLinesEqual(String expected, String actual) throws AssertionError {
+        assertLinesEqual(null, expected, actual);
+    }
+
+    /**
+     * Returns a unified diff of the lines of two {@link String}s, using the given test for
+     * whether two lines are the same.
+     *
+     * @param expected the expected {@link String}
+     * @param actual   the actual {@link String}
+     * @param equal    the test for whether two lines are the same
+     * @return the diff, or an empty {@link String} if the lines are the same
+     */
+    static String diff(String expected, String actual, BiPredicate<String, String> equal) {
+        String[] a = lines(expected);
+        String[] b = lines(actual);
+
+        // Lines at the start and end that are the same are cheap to find and usually most of the output
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && equal.test(a[prefix], b[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+            && equal.test(a[a.length - 1 - suffix], b[b.length - 1 - suffix])) {
+            suffix++;
+        }
+        if (prefix == a.length && prefix == b.length) {
+            return "";
+        }
+
+        List<Run> runs = new ArrayList<>();
+        add(runs, Run.EQUAL, prefix);
+        List<Run> middle = myers(a, prefix, a.length - suffix, b, prefix, b.length - suffix, equal);
+        if (middle == null) {
+            add(runs, Run.DELETE, a.length - suffix - prefix);
+            add(runs, Run.INSERT, b.length - suffix - prefix);
+        } else {
+            for (Run run : middle) {
+                add(runs, run.type, run.count);
+            }
+        }
+        add(runs, Run.EQUAL, suffix);
+
+        return format(a, b, runs);
+    }
+
+    /**
+     * Splits a {@link String} into lines. A line ending at the very end does not start a new line.
+     *
+     * @param s the {@link String} to split
+     * @return the lines of the {@link String}, without line endings
+     */
+    private static String[] lines(String s) {
+        if (s.isEmpty()) {
+            return new String[0];
+        }
+
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (start < s.length()) {
+            int end = s.indexOf('\n', start);
+            int next = end < 0 ? s.length() : end + 1;
+            if (end < 0) {
+                end = s.length();
+            }
+            if (end > start && s.charAt(end - 1) == '\r') {
+                end--;
+            }
+            lines.add(s.substring(start, end));
+            start = next;
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Finds the smallest set of changes between two ranges of lines with Myers' algorithm.
+     *
+     * @param a      the expected lines
+     * @param aStart the start of the expected range
+     * @param aEnd   the end of the expected range (exclusive)
+     * @param b      the actual lines
+     * @param bStart the start of the actual range
+     * @param bEnd   the end of the actual range (exclusive)
+     * @param equal  the test for whether two lines are the same
+     * @return the runs of unchanged, deleted and inserted lines, or {@code null} if
+     * the smallest diff has more than {@link #MAX_EDIT_COST} changed lines
+     */
+    private static List<Run> myers(String[] a, int aStart, int aEnd, String[] b, int bStart, int bEnd,
+                                   BiPredicate<String, String> equal) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        int max = Math.min(n + m, MAX_EDIT_COST);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+
+        for (int d = 0; d <= max; d++) {
+            // Only the diagonals that can be reached with d changes are kept for backtracking
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                    ? v[offset + k + 1]
+                    : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && equal.test(a[aStart + x], b[bStart + y])) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+
+                if (x >= n && y >= m) {
+                    return backtrack(trace, n, m);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Follows the path found by Myers' algorithm back from the end to build the runs of changes.
+     *
+     * @param trace the furthest reaching points of each diagonal, before each number of changes
+     * @param n     the number of expected lines
+     * @param m     the number of actual lines
+     * @return the runs of unchanged, deleted and inserted lines
+     */
+    private static List<Run> backtrack(List<int[]> trace, int n, int m) {
+        List<Run> reversed = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d >= 0; d--) {
+            int prevX = 0;
+            int prevY = 0;
+            if (d > 0) {
+                int[] v = trace.get(d);
+                int k = x - y;
+                int prevK = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]) ? k + 1 : k - 1;
+                prevX = v[prevK + d];
+                prevY = prevX - prevK;
+            }
+
+            while (x > prevX && y > prevY) {
+                add(reversed, Run.EQUAL, 1);
+                x--;
+                y--;
+            }
+            if (d > 0) {
+                add(reversed, x == prevX ? Run.INSERT : Run.DELETE, 1);
+                x = prevX;
+                y = prevY;
+            }
+        }
+
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    /**
+     * Adds lines to a list of runs, extending the last run if it is of the same type.
+     *
+     * @param runs  the runs
+     * @param type  the type of the lines
+     * @param count the number of lines
+     */
+    private static void add(List<Run> runs, char type, int count) {
+        if (count == 0) {
+            return;
+        }
+
+        Run last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+        if (last != null && last.type == type) {
+            last.count += count;
+        } else {
+            runs.add(new Run(type, count));
+        }
+    }
+
+    /**
+     * Formats runs of changes as a unified diff, with a few lines of context around each change.
+     * Changes that are close together share a hunk.
+     *
+     * @param a    the expected lines
+     * @param b    the actual lines
+     * @param runs the runs of unchanged, deleted and inserted lines
+     * @return the unified diff
+     */
+    private static String format(String[] a, String[] b, List<Run> runs) {
+        String newline = System.lineSeparator();
+        StringBuilder diff = new StringBuilder("--- expected").append(newline).append("+++ actual").append(newline);
+        int shown = 0;
+        int i = 0;
+        int j = 0;
+        int r = 0;
+        while (r < runs.size()) {
+            if (runs.get(r).type == Run.EQUAL) {
+                i += runs.get(r).count;
+                j += runs.get(r).count;
+                r++;
+                continue;
+            }
+
+            // Find the end of the hunk: the first unchanged run that is too long to bridge two changes
+            int end = r;
+            int aEnd = i;
+            int bEnd = j;
+            while (end < runs.size()) {
+                Run run = runs.get(end);
+                if (run.type == Run.EQUAL && (end == runs.size() - 1 || run.count > 2 * CONTEXT_LINES)) {
+                    break;
+                }
+                aEnd += run.type == Run.INSERT ? 0 : run.count;
+                bEnd += run.type == Run.DELETE ? 0 : run.count;
+                end++;
+            }
+
+            int before = Math.min(CONTEXT_LINES, i);
+            int after = Math.min(CONTEXT_LINES, a.length - aEnd);
+            int aCount = aEnd - i + before + after;
+            int bCount = bEnd - j + before + after;
+            diff.append(String.format("@@ -%d,%d +%d,%d @@%n",
+                aCount == 0 ? i - before : i - before + 1, aCount,
+                bCount == 0 ? j - before : j - before + 1, bCount));
+
+            List<String> hunk = new ArrayList<>();
+            for (int c = i - before; c < i; c++) {
+                hunk.add(" " + a[c]);
+            }
+            for (int h = r; h < end; h++) {
+                Run run = runs.get(h);
+                for (int c = 0; c < run.count; c++) {
+                    if (run.type == Run.INSERT) {
+                        hunk.add("+" + b[j++]);
+                    } else if (run.type == Run.DELETE) {
+                        hunk.add("-" + a[i++]);
+                    } else {
+                        hunk.add(" " + a[i++]);
+                        j++;
+                    }
+                }
+            }
+            for (int c = i; c < i + after; c++) {
+                hunk.add(" " + a[c]);
+            }
+
+            for (String line : hunk) {
+                if (shown == MAX_DIFF_LINES) {
+                    return diff.append("... (diff truncated)").append(newline).toString();
+                }
+                diff.append(line.length() > MAX_LINE_LENGTH ? line.substring(0, MAX_LINE_LENGTH) + "..." : line)
+                    .append(newline);
+                shown++;
+            }
+            r = end;
+        }
+        return diff.toString();
+    }
+
+    /**
+     * The {@link Run} class holds a number of consecutive lines that are
+     * all unchanged, all deleted or all inserted.
+     */
+    private static final class Run {
+
+        /**
+         * The type of unchanged lines.
+         */
+        static final char EQUAL = ' ';
+
+        /**
+         * The type of deleted lines.
+         */
+        static final char DELETE = '-';
+
+        /**
+         * The type of inserted lines.
+         */
+        static final char INSERT = '+';
+
+        /**
+         * The type of the lines.
+         */
+        private final char type;
+
+        /**
+         * The number of lines.
+         */
+        private int count;
+
+        /**
+         * Creates a new {@link Run}.
+         *
+         * @param type  the type of the lines
+         * @param count the number of lines
+         */
+        Run(char type, int count) {
+            this.type = type;
+            this.count = count;
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package edu.purdue.cs.percolator.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@link MappedFileInputStream} class reads a file through memory-mapped windows, so that
+ * large expected output files are paged in by the operating system instead of being copied
+ * onto the heap. Files larger than a single window are mapped one window at a time.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+final class MappedFileInputStream extends InputStream {
+
+    /**
+     * The maximum number of bytes to map at once.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the file in bytes.
+     */
+    private final long size;
+
+    /**
+     * The position of the current window in the file.
+     */
+    private long windowStart;
+
+    /**
+     * The current window, or {@code null} if no window has been mapped yet.
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * Opens a file for reading.
+     *
+     * @param path the file to read
+     * @throws IOException if the file cannot be opened
+     */
+    MappedFileInputStream(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = this.channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return this.window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+
+        int read = Math.min(len, this.window.remaining());
+        this.window.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Maps the next window if the current one has been read completely.
+     *
+     * @return true if there are bytes left to read, false at the end of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    private boolean ensureWindow() throws IOException {
+        if (this.window != null && this.window.hasRemaining()) {
+            return true;
+        }
+
+        long next = this.window == null ? 0 : this.windowStart + this.window.capacity();
+        if (next >= this.size) {
+            return false;
+        }
+
+        this.windowStart = next;
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(WINDOW_SIZE, this.size - next));
+        return true;
+    }
+
+}
@@ -6,11 +6,16 @@ import org.junit.Assert;
  * The {@link StringUtilities} class contains useful tools for testing {@link String}s.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.1
+ * @version 1.3
  * @since 1.0
  */
 public final class StringUtilities {
 
+    /**
+     * The number of characters of context to show on each side of the first difference.
+     */
+    private static final int CONTEXT_LENGTH = 20;
+
     /**
      * Private default constructor so no objects can be created of this type.
      */
@@ -26,18 +31,14 @@ public final class StringUtilities {
      * @return true if they are "fuzzy equal", false otherwise
      */
     public static boolean fuzzyEquals(String s1, String s2) {
-        try {
-            assertFuzzyEquals(s1, s2);
-        } catch (AssertionError e) {
-            return false;
-        }
-
-        return true;
+        return fuzzyMismatch(s1, s2) < 0;
     }
 
     /**
      * Asserts that two {@link String}s are "fuzzy-equal"
      * (i.e., ignoring all whitespace and capitalization).
+     * If they are not, the assertion message shows where they first differ,
+     * followed by a diff of the lines that differ.
      *
      * @param message  the assertion message to display
      * @param expected the expected {@link String}
@@ -45,10 +46,17 @@ public final class StringUtilities {
      * @throws AssertionError if the {@link String}s are not "fuzzy-equal"
      */
     public static void assertFuzzyEquals(String message, String expected, String actual) throws AssertionError {
-        String s1 = removeAllWhitespace(expected).toLowerCase();
-        String s2 = removeAllWhitespace(actual).toLowerCase();
-        if (!s1.equals(s2)) {
-            Assert.assertEquals(message, expected, actual);
+        long mismatch = fuzzyMismatch(expected, actual);
+        if (mismatch >= 0) {
+            int expectedIndex = (int) (mismatch >>> 32);
+            int actualIndex = (int) mismatch;
+            Assert.fail(String.format("%sexpected fuzzy match, but first difference is at index %d of expected " +
+                    "and index %d of actual:%nexpected: %s%nactual:   %s%n%s",
+                message == null ? "" : message + " ",
+                expectedIndex, actualIndex,
+                context(expected, expectedIndex), context(actual, actualIndex),
+                DiffUtilities.diff(expected, actual, StringUtilities::fuzzyEquals)
+            ));
         }
     }
 
@@ -81,7 +89,95 @@ public final class StringUtilities {
      * @return a {@link String} with no whitespace
      */
     public static String removeAllWhitespace(String s) {
-        return s.replaceAll("\\s", "");
+        StringBuilder builder = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Finds the first difference between two {@link String}s, ignoring all whitespace
+     * and capitalization. Both {@link String}s are walked at the same time, one code point
+     * at a time, without creating any intermediate {@link String}s.
+     *
+     * @param s1 the first {@link String}
+     * @param s2 the second {@link String}
+     * @return -1 if the {@link String}s are "fuzzy equal", otherwise the index of the first
+     * difference in the first {@link String} in the upper 32 bits, and the index of the first
+     * difference in the second {@link String} in the lower 32 bits
+     */
+    private static long fuzzyMismatch(String s1, String s2) {
+        int i = 0;
+        int j = 0;
+        while (true) {
+            while (i < s1.length() && isWhitespace(s1.charAt(i))) {
+                i++;
+            }
+            while (j < s2.length() && isWhitespace(s2.charAt(j))) {
+                j++;
+            }
+
+            if (i == s1.length() || j == s2.length()) {
+                return i == s1.length() && j == s2.length() ? -1 : ((long) i << 32) | j;
+            }
+
+            int c1 = s1.codePointAt(i);
+            int c2 = s2.codePointAt(j);
+            if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+                return ((long) i << 32) | j;
+            }
+            i += Character.charCount(c1);
+            j += Character.charCount(c2);
+        }
+    }
+
+    /**
+     * Determines whether a character is whitespace, using the same definition as
+     * the {@code \s} regular expression: a space, tab, line feed, vertical tab,
+     * form feed or carriage return.
+     *
+     * @param c the character
+     * @return true if the character is whitespace, false otherwise
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    /**
+     * Returns the characters around an index of a {@link String}, with the character at the
+     * index in brackets and line endings and tabs escaped, to show where two {@link String}s differ.
+     *
+     * @param s     the {@link String}
+     * @param index the index to show the context of
+     * @return the context of the index
+     */
+    private static String context(String s, int index) {
+        int start = Math.max(index - CONTEXT_LENGTH, 0);
+        int end = Math.min(index + CONTEXT_LENGTH, s.length());
+        StringBuilder builder = new StringBuilder();
+        if (start > 0) {
+            builder.append("...");
+        }
+        for (int i = start; i < end; i++) {
+            if (i == index) {
+                builder.append('[');
+            }
+            char c = s.charAt(i);
+            builder.append(c == '\n' ? "\\n" : c == '\r' ? "\\r" : c == '\t' ? "\\t" : String.valueOf(c));
+            if (i == index) {
+                builder.append(']');
+            }
+        }
+        if (index == s.length()) {
+            builder.append("[<end>]");
+        } else if (end < s.length()) {
+            builder.append("...");
+        }
+        return builder.toString();
     }
 
 }
@@ -0,0 +1,73 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+/**
+ * Tests the {@link AutoGrader} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class AutoGraderTest {
+
+    private static final String POLICY = "<?xml version=\"1.0\"?>\n" +
+        "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"\n" +
+        "    \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n" +
+        "<module name=\"Checker\">\n" +
+        "  <module name=\"FileTabCharacter\"/>\n" +
+        "</module>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void run_testConcurrentStyleCheckSameAsSerial() throws IOException {
+        File submission = folder.newFolder("submission");
+        Files.writeString(new File(submission, "Messy.java").toPath(),
+            String.format("public class Messy {%n\tint x;%n}%n"));
+        File policy = folder.newFile("checkstyle.xml");
+        Files.writeString(policy.toPath(), POLICY);
+
+        String serial = gradeSubmission(submission, policy, false);
+        String concurrent = gradeSubmission(submission, policy, true);
+
+        Assert.assertEquals(serial, concurrent);
+        Assert.assertTrue(concurrent.contains("Code Style,5.0"));
+    }
+
+    private static String gradeSubmission(File submission, File policy, boolean concurrent) {
+        StyleChecker styleChecker = StyleChecker.lint(submission.getPath(), policy.getPath())
+            .withMaxScore(10)
+            .withDeduction(5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        AutoGrader.grade(new Class<?>[]{PassingSuite.class})
+            .onVocareum()
+            .withStyleChecker(styleChecker)
+            .withConcurrentStyleCheck(concurrent)
+            .gradeSubmission(submission, new PrintStream(out), new PrintStream(err));
+        return out.toString();
+    }
+
+    public static class PassingSuite {
+
+        @Test
+        @TestCase(name = "Passes")
+        public void passes() throws InterruptedException {
+            Thread.sleep(100);
+        }
+
+    }
+
+}
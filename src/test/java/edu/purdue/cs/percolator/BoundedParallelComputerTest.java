@@ -0,0 +1,143 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Computer;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tests the {@link BoundedParallelComputer} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class BoundedParallelComputerTest {
+
+    private static final Class<?>[] TEST_SUITES = {SlowSuite.class, FastSuite.class};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void run_testSameResultsAsSerial() {
+        List<GradedTestResult> serial = runTestSuites(Computer.serial());
+        List<GradedTestResult> parallel = runTestSuites(new BoundedParallelComputer(2, true, 0, 0));
+
+        Assert.assertEquals(serial.size(), parallel.size());
+        for (int i = 0; i < serial.size(); i++) {
+            Assert.assertEquals(serial.get(i).getName(), parallel.get(i).getName());
+            Assert.assertEquals(serial.get(i).getScore(), parallel.get(i).getScore(), 0.0);
+            Assert.assertEquals(serial.get(i).getPoints(), parallel.get(i).getPoints(), 0.0);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void run_testPlanOrder() {
+        List<GradedTestResult> results = runTestSuites(new BoundedParallelComputer(4, true, 0, 0));
+
+        Assert.assertEquals(4, results.size());
+        Assert.assertTrue(results.get(0).getName().startsWith("Slow"));
+        Assert.assertTrue(results.get(1).getName().startsWith("Slow"));
+        Assert.assertTrue(results.get(2).getName().startsWith("Fast"));
+        Assert.assertTrue(results.get(3).getName().startsWith("Fast"));
+    }
+
+    @Test(timeout = 5000)
+    public void run_testLongestFirst() throws IOException {
+        Path historyFile = folder.getRoot().toPath().resolve("durations.tsv");
+        Files.write(historyFile, Arrays.asList(
+            "3000000\t" + Description.createTestDescription(TimedSuite.class, "shortest").getDisplayName(),
+            "9000000\t" + Description.createTestDescription(TimedSuite.class, "longest").getDisplayName(),
+            "6000000\t" + Description.createTestDescription(TimedSuite.class, "middle").getDisplayName()
+        ), StandardCharsets.UTF_8);
+        TimedSuite.started.clear();
+
+        TestScheduler scheduler = new TestScheduler(new DurationHistory(historyFile), 0);
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        runner.run(new BoundedParallelComputer(1, true, 0, 0, scheduler), TimedSuite.class);
+
+        Assert.assertEquals(Arrays.asList("longest", "middle", "shortest"), TimedSuite.started);
+        Assert.assertEquals(3, listener.getTestResults().size());
+    }
+
+    private static List<GradedTestResult> runTestSuites(Computer computer) {
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        runner.run(computer, TEST_SUITES);
+        return listener.getTestResults();
+    }
+
+    public static class SlowSuite {
+
+        @Test
+        @TestCase(name = "Slow pass", points = 2)
+        public void slowPass() throws InterruptedException {
+            Thread.sleep(200);
+        }
+
+        @Test
+        @TestCase(name = "Slow fail", points = 1)
+        public void slowFail() throws InterruptedException {
+            Thread.sleep(100);
+            Assert.fail();
+        }
+
+    }
+
+    public static class FastSuite {
+
+        @Test
+        @TestCase(name = "Fast pass", points = 3)
+        public void fastPass() {
+        }
+
+        @Test
+        @TestCase(name = "Fast fail", points = 4)
+        public void fastFail() {
+            Assert.fail();
+        }
+
+    }
+
+    public static class TimedSuite {
+
+        public static final List<String> started = new CopyOnWriteArrayList<>();
+
+        @Test
+        @TestCase(name = "Shortest")
+        public void shortest() {
+            started.add("shortest");
+        }
+
+        @Test
+        @TestCase(name = "Longest")
+        public void longest() {
+            started.add("longest");
+        }
+
+        @Test
+        @TestCase(name = "Middle")
+        public void middle() {
+            started.add("middle");
+        }
+
+    }
+
+}
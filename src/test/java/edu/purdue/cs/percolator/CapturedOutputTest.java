@@ -0,0 +1,72 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link CapturedOutput} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class CapturedOutputTest {
+
+    @Test(timeout = 1000)
+    public void close_testEmpty() {
+        CapturedOutput output = new CapturedOutput(16);
+
+        Assert.assertEquals("", output.close());
+        Assert.assertFalse(output.isTruncated());
+    }
+
+    @Test(timeout = 1000)
+    public void close_testUnderLimit() {
+        CapturedOutput output = new CapturedOutput(64);
+        write(output, "Hello\nWorld");
+
+        Assert.assertEquals("Hello\nWorld", output.close());
+        Assert.assertFalse(output.isTruncated());
+    }
+
+    @Test(timeout = 1000)
+    public void close_testKeepsHeadAndTail() {
+        CapturedOutput output = new CapturedOutput(8);
+        write(output, "abcd0123456789wxyz");
+
+        String result = output.close();
+        Assert.assertTrue(output.isTruncated());
+        Assert.assertTrue(result.startsWith("abcd"));
+        Assert.assertTrue(result.endsWith("wxyz"));
+        Assert.assertTrue(result.contains("10 bytes omitted"));
+    }
+
+    @Test(timeout = 1000)
+    public void close_testFoldsRepeatedLines() {
+        CapturedOutput output = new CapturedOutput(1024);
+        write(output, "start\n");
+        for (int i = 0; i < 100_000; i++) {
+            write(output, "again\r\n");
+        }
+        write(output, "end\n");
+
+        Assert.assertEquals("start\nagain (repeated 100000 times)\r\nend\n", output.close());
+        Assert.assertFalse(output.isTruncated());
+    }
+
+    @Test(timeout = 1000)
+    public void write_testIgnoredAfterClose() {
+        CapturedOutput output = new CapturedOutput(64);
+        write(output, "before\n");
+        output.close();
+        write(output, "after\n");
+
+        Assert.assertEquals("before\n", output.close());
+    }
+
+    private static void write(CapturedOutput output, String s) {
+        byte[] bytes = s.getBytes();
+        output.write(bytes, 0, bytes.length);
+    }
+
+}
@@ -0,0 +1,185 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.Grader;
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Tests the {@link CheckpointRecovery} and {@link CheckpointWriter} classes.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class CheckpointRecoveryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void recover_testCompleteCheckpoint() throws IOException {
+        File submission = folder.newFolder("submission");
+        File checkpoint = new File(folder.getRoot(), "checkpoint.ndjson");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        AutoGrader.grade(new Class<?>[]{MixedSuite.class})
+            .onVocareum()
+            .withMaxScore(50)
+            .gradeSubmission(submission, new PrintStream(out), new PrintStream(err), null, checkpoint);
+
+        ByteArrayOutputStream recoveredOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream recoveredErr = new ByteArrayOutputStream();
+        new VocareumFormatter().printGradingResults(CheckpointRecovery.recover(checkpoint),
+            new PrintStream(recoveredOut), new PrintStream(recoveredErr));
+
+        Assert.assertEquals(out.toString(), recoveredOut.toString());
+        Assert.assertEquals(err.toString(), recoveredErr.toString());
+    }
+
+    @Test(timeout = 5000)
+    public void recover_testIgnoredTestsAndFailedSetup() throws IOException {
+        File submission = folder.newFolder("submission");
+        File checkpoint = new File(folder.getRoot(), "checkpoint.ndjson");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        AutoGrader.grade(new Class<?>[]{IgnoringSuite.class, FailingSetupSuite.class})
+            .onVocareum()
+            .gradeSubmission(submission, new PrintStream(out), new PrintStream(err), null, checkpoint);
+        Assert.assertTrue(out.toString().startsWith("Test Cases,100.0"));
+
+        ByteArrayOutputStream recoveredOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream recoveredErr = new ByteArrayOutputStream();
+        new VocareumFormatter().printGradingResults(CheckpointRecovery.recover(checkpoint),
+            new PrintStream(recoveredOut), new PrintStream(recoveredErr));
+
+        Assert.assertEquals(out.toString(), recoveredOut.toString());
+        Assert.assertEquals(err.toString(), recoveredErr.toString());
+    }
+
+    @Test(timeout = 5000)
+    public void recover_testPartialCheckpoint() throws IOException {
+        File checkpoint = folder.newFile("checkpoint.ndjson");
+        CheckpointWriter writer = new CheckpointWriter(checkpoint, 100);
+        writer.planned("first(Suite)", 1, annotation("first"));
+        writer.planned("second(Suite)", 2, annotation("second"));
+        writer.planned("third(Suite)", 3, annotation("third"));
+
+        GradedTestResult third = new GradedTestResult("Third", "", 2, GradedTestResult.VISIBLE);
+        third.setScore(2);
+        third.addOutput("line one\nline \"two\"\n");
+        third.setPassed(true);
+        writer.result("third(Suite)", 3, third);
+        writer.close();
+
+        // Simulate the JVM dying in the middle of writing a line
+        Files.writeString(checkpoint.toPath(), "{\"type\":\"result\",\"test\":\"first(Su",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Grader grader = CheckpointRecovery.recover(checkpoint);
+        List<GradedTestResult> results = grader.getGradedTestResults();
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals("First", results.get(0).getName());
+        Assert.assertEquals(0, results.get(0).getScore(), 0.0);
+        Assert.assertEquals(25, results.get(0).getPoints(), 1e-9);
+        Assert.assertFalse(results.get(0).passed());
+        Assert.assertEquals(CheckpointRecovery.NOT_FINISHED_MESSAGE, results.get(0).getOutput());
+        Assert.assertEquals("Second", results.get(1).getName());
+
+        Assert.assertEquals("Third", results.get(2).getName());
+        Assert.assertEquals(50, results.get(2).getScore(), 1e-9);
+        Assert.assertEquals("line one\nline \"two\"\n", results.get(2).getOutput());
+        Assert.assertTrue(results.get(2).passed());
+    }
+
+    private static TestCase annotation(String method) {
+        try {
+            return AnnotatedSuite.class.getMethod(method).getAnnotation(TestCase.class);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public static class AnnotatedSuite {
+
+        @TestCase(name = "First")
+        public void first() {
+        }
+
+        @TestCase(name = "Second")
+        public void second() {
+        }
+
+        @TestCase(name = "Third", points = 2)
+        public void third() {
+        }
+
+    }
+
+    public static class IgnoringSuite {
+
+        @Test
+        @TestCase(name = "Passing", points = 10)
+        public void passing() {
+        }
+
+        @Test
+        @Ignore
+        @TestCase(name = "Ignored", points = 10)
+        public void ignored() {
+        }
+
+    }
+
+    public static class FailingSetupSuite {
+
+        @BeforeClass
+        public static void setUp() {
+            throw new IllegalStateException("setup failed");
+        }
+
+        @Test
+        @TestCase(name = "Never run", points = 10)
+        public void neverRun() {
+        }
+
+    }
+
+    public static class MixedSuite {
+
+        @Test
+        @TestCase(name = "Passing", group = "1", points = 3)
+        public void passing() {
+            System.out.println("Unicode output: é中");
+        }
+
+        @Test
+        @TestCase(name = "Failing", points = 2)
+        public void failing() {
+            Assert.assertEquals(1, 2);
+        }
+
+        @Test
+        public void unannotated() {
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.Grader;
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Tests the {@link GradescopeFormatter} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class GradescopeFormatterTest {
+
+    @Test(timeout = 1000)
+    public void printGradingResults_testIndented() {
+        String output = format(new GradescopeFormatter(), createGrader());
+
+        Assert.assertTrue(output.startsWith("{\n  \"max_score\": 100,\n"));
+        Assert.assertTrue(output.contains("\n    {\n      \"name\": \"First\",\n"));
+        checkResults(new JSONObject(output));
+    }
+
+    @Test(timeout = 1000)
+    public void printGradingResults_testCompact() {
+        String output = format(new GradescopeFormatter(true), createGrader());
+
+        Assert.assertEquals(output.length() - System.lineSeparator().length(), output.indexOf('\n'));
+        Assert.assertTrue(output.contains("{\"name\":\"First\",\"number\":\"1\",\"score\":12.5,"));
+        checkResults(new JSONObject(output));
+    }
+
+    @Test(timeout = 1000)
+    public void printGradingResults_testEscaping() {
+        Grader grader = new Grader();
+        GradedTestResult result = new GradedTestResult("Quote \" and </tag>", "", 1, GradedTestResult.VISIBLE);
+        result.addOutput("tab\tnewline\nbell\u0007");
+        grader.addGradedTestResult(result);
+        String output = format(new GradescopeFormatter(true), grader);
+
+        Assert.assertTrue(output.contains("\"Quote \\\" and <\\/tag>\""));
+        Assert.assertTrue(output.contains("\"tab\\tnewline\\nbell\\u0007\""));
+        JSONObject test = new JSONObject(output).getJSONArray("tests").getJSONObject(0);
+        Assert.assertEquals(result.getName(), test.getString("name"));
+        Assert.assertEquals(result.getOutput(), test.getString("output"));
+    }
+
+    private static Grader createGrader() {
+        Grader grader = new Grader();
+        grader.setMaxScore(100);
+        GradedTestResult first = new GradedTestResult("First", "1", 25, GradedTestResult.VISIBLE);
+        first.setScore(12.5);
+        first.addOutput("Expected 1 but was 2");
+        GradedTestResult second = new GradedTestResult("Second", "2", 75, GradedTestResult.HIDDEN);
+        second.setScore(75);
+        grader.addGradedTestResult(first);
+        grader.addGradedTestResult(second);
+        return grader;
+    }
+
+    private static void checkResults(JSONObject json) {
+        Assert.assertEquals(100, json.getDouble("max_score"), 0.0);
+        JSONArray tests = json.getJSONArray("tests");
+        Assert.assertEquals(2, tests.length());
+        Assert.assertEquals("First", tests.getJSONObject(0).getString("name"));
+        Assert.assertEquals(12.5, tests.getJSONObject(0).getDouble("score"), 0.0);
+        Assert.assertEquals(25, tests.getJSONObject(0).getDouble("max_score"), 0.0);
+        Assert.assertEquals("Expected 1 but was 2", tests.getJSONObject(0).getString("output"));
+        Assert.assertEquals(GradedTestResult.HIDDEN, tests.getJSONObject(1).getString("visibility"));
+    }
+
+    private static String format(GradescopeFormatter formatter, Grader grader) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.printGradingResults(grader, new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+        return out.toString();
+    }
+
+}
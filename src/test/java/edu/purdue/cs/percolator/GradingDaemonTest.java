@@ -0,0 +1,143 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Tests the {@link GradingDaemon} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class GradingDaemonTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void start_testSocket() throws IOException {
+        File submission = folder.newFolder("submission");
+        GradingDaemon daemon = GradingDaemon.serve(createGrader()).onPort(0).start();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            PrintStream request = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8.name());
+            request.println(submission.getAbsolutePath());
+
+            InputStream reply = socket.getInputStream();
+            String response = new String(reply.readAllBytes(), StandardCharsets.UTF_8);
+            Assert.assertTrue(response.startsWith("Test Cases,100.0"));
+            Assert.assertTrue(response.contains(GradingDaemon.REPORT_SEPARATOR));
+            Assert.assertTrue(response.contains("ALL TESTS PASS!"));
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void start_testSpoolDirectory() throws IOException, InterruptedException {
+        File submission = folder.newFolder("submission");
+        File spool = folder.newFolder("spool");
+        GradingDaemon daemon = GradingDaemon.serve(createGrader()).watching(spool.getPath()).start();
+
+        try {
+            Path temp = spool.toPath().resolve("first.tmp");
+            Files.writeString(temp, submission.getAbsolutePath());
+            Files.move(temp, spool.toPath().resolve("first.job"));
+
+            Path done = spool.toPath().resolve("first.done");
+            while (!Files.exists(done)) {
+                Thread.sleep(10);
+            }
+
+            String results = Files.readString(spool.toPath().resolve("first.out"));
+            Assert.assertTrue(results.startsWith("Test Cases,100.0"));
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void start_testSpoolDirectoryGradesEachJobOnce() throws IOException, InterruptedException {
+        File submission = folder.newFolder("submission");
+        File spool = folder.newFolder("spool");
+        Path waiting = spool.toPath().resolve("waiting.job");
+        Files.writeString(waiting, submission.getAbsolutePath());
+        GradingDaemon daemon = GradingDaemon.serve(createGrader()).watching(spool.getPath()).withWorkers(4);
+
+        try {
+            daemon.start();
+            for (int i = 0; i < 20; i++) {
+                Path temp = spool.toPath().resolve("job-" + i + ".tmp");
+                Files.writeString(temp, submission.getAbsolutePath());
+                Files.move(temp, spool.toPath().resolve("job-" + i + ".job"));
+            }
+
+            while (countFiles(spool, ".done") < 21) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(0, countFiles(spool, ".failed"));
+            Assert.assertEquals(0, countFiles(spool, ".running"));
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void start_testInvalidSubmission() throws IOException {
+        GradingDaemon daemon = GradingDaemon.serve(createGrader()).onPort(0).start();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            PrintStream request = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8.name());
+            request.println(new File(folder.getRoot(), "missing").getAbsolutePath());
+
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            Assert.assertTrue(response.startsWith("ERROR: "));
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void start_testReadTimeout() throws IOException {
+        GradingDaemon daemon = GradingDaemon.serve(createGrader()).onPort(0).withReadTimeout(100).start();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            Assert.assertTrue(response.startsWith("ERROR: "));
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    private static long countFiles(File directory, String extension) {
+        return Arrays.stream(directory.list()).filter(name -> name.endsWith(extension)).count();
+    }
+
+    private static AutoGrader createGrader() {
+        return AutoGrader.grade(new Class<?>[]{PassingSuite.class}).onVocareum();
+    }
+
+    public static class PassingSuite {
+
+        @Test
+        @TestCase(name = "Passing")
+        public void passing() {
+        }
+
+    }
+
+}
@@ -0,0 +1,193 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+
+import java.util.List;
+
+/**
+ * Tests the {@link GradingRunner} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class GradingRunnerTest {
+
+    @Test(timeout = 5000)
+    public void run_testTimeoutFromTestCase() {
+        List<GradedTestResult> results = runTestSuite(LoopingSuite.class, 0);
+
+        GradedTestResult looping = findResult(results, "Looping");
+        Assert.assertEquals(0, looping.getScore(), 0.0);
+        Assert.assertFalse(looping.passed());
+        Assert.assertTrue(looping.getOutput().contains("timed out"));
+
+        GradedTestResult passing = findResult(results, "Passing");
+        Assert.assertTrue(passing.passed());
+        Assert.assertEquals(50, passing.getScore(), 0.0);
+    }
+
+    @Test(timeout = 5000)
+    public void run_testDefaultTimeout() {
+        List<GradedTestResult> results = runTestSuite(SleepingSuite.class, 100);
+
+        GradedTestResult sleeping = findResult(results, "Sleeping");
+        Assert.assertEquals(0, sleeping.getScore(), 0.0);
+        Assert.assertTrue(sleeping.getOutput().contains("timed out"));
+    }
+
+    @Test(timeout = 5000)
+    public void run_testTimeoutCoversBefore() {
+        List<GradedTestResult> results = runTestSuite(LoopingSetupSuite.class, 0);
+
+        GradedTestResult looping = findResult(results, "Looping setup");
+        Assert.assertEquals(0, looping.getScore(), 0.0);
+        Assert.assertFalse(looping.passed());
+        Assert.assertTrue(looping.getOutput().contains("timed out"));
+    }
+
+    @Test(timeout = 5000)
+    public void run_testTimeoutCoversConstructor() {
+        List<GradedTestResult> results = runTestSuite(LoopingConstructorSuite.class, 0);
+
+        GradedTestResult looping = findResult(results, "Looping constructor");
+        Assert.assertEquals(0, looping.getScore(), 0.0);
+        Assert.assertFalse(looping.passed());
+        Assert.assertTrue(looping.getOutput().contains("timed out"));
+    }
+
+    @Test(timeout = 5000)
+    public void run_testAllocationLimitFromTestCase() {
+        List<GradedTestResult> results = runTestSuite(AllocatingSuite.class, 0, 0);
+
+        GradedTestResult wasteful = findResult(results, "Wasteful");
+        Assert.assertEquals(0, wasteful.getScore(), 0.0);
+        Assert.assertFalse(wasteful.passed());
+        Assert.assertTrue(wasteful.getOutput().contains("more than its limit of 1048576 bytes"));
+
+        GradedTestResult frugal = findResult(results, "Frugal");
+        Assert.assertTrue(frugal.passed());
+    }
+
+    @Test(timeout = 5000)
+    public void run_testDefaultAllocationLimit() {
+        List<GradedTestResult> results = runTestSuite(AllocatingSuite.class, 0, 64L * 1024 * 1024);
+
+        GradedTestResult looping = findResult(results, "Allocating loop");
+        Assert.assertEquals(0, looping.getScore(), 0.0);
+        Assert.assertTrue(looping.getOutput().contains("more than its limit of 67108864 bytes"));
+        Assert.assertTrue(findResult(results, "Frugal").passed());
+    }
+
+    private static List<GradedTestResult> runTestSuite(Class<?> testSuite, long defaultTimeoutMillis) {
+        return runTestSuite(testSuite, defaultTimeoutMillis, 0);
+    }
+
+    private static List<GradedTestResult> runTestSuite(Class<?> testSuite, long defaultTimeoutMillis,
+                                                       long defaultMaxAllocatedBytes) {
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        runner.run(new GradingComputer(defaultTimeoutMillis, defaultMaxAllocatedBytes), testSuite);
+        return listener.getTestResults();
+    }
+
+    private static GradedTestResult findResult(List<GradedTestResult> results, String name) {
+        return results.stream()
+            .filter(r -> r.getName().equals(name))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+    }
+
+    public static class LoopingSuite {
+
+        @Test
+        @TestCase(name = "Looping", timeoutMillis = 100)
+        @SuppressWarnings("StatementWithEmptyBody")
+        public void looping() {
+            while (true) {
+            }
+        }
+
+        @Test
+        @TestCase(name = "Passing")
+        public void passing() {
+        }
+
+    }
+
+    public static class LoopingSetupSuite {
+
+        @Before
+        @SuppressWarnings("StatementWithEmptyBody")
+        public void setUp() {
+            while (true) {
+            }
+        }
+
+        @Test
+        @TestCase(name = "Looping setup", timeoutMillis = 100)
+        public void passing() {
+        }
+
+    }
+
+    public static class LoopingConstructorSuite {
+
+        @SuppressWarnings("StatementWithEmptyBody")
+        public LoopingConstructorSuite() {
+            while (true) {
+            }
+        }
+
+        @Test
+        @TestCase(name = "Looping constructor", timeoutMillis = 100)
+        public void passing() {
+        }
+
+    }
+
+    public static class AllocatingSuite {
+
+        public static volatile Object sink;
+
+        @Test
+        @TestCase(name = "Wasteful", maxAllocatedBytes = 1024 * 1024)
+        public void wasteful() {
+            for (int i = 0; i < 16; i++) {
+                sink = new byte[1024 * 1024];
+            }
+        }
+
+        @Test
+        @TestCase(name = "Allocating loop")
+        public void allocatingLoop() {
+            for (int i = 0; i < 1024 && !Thread.currentThread().isInterrupted(); i++) {
+                sink = new byte[1024 * 1024];
+            }
+        }
+
+        @Test
+        @TestCase(name = "Frugal", maxAllocatedBytes = 1024 * 1024)
+        public void frugal() {
+            sink = new byte[1024];
+        }
+
+    }
+
+    public static class SleepingSuite {
+
+        @Test
+        @TestCase(name = "Sleeping")
+        public void sleeping() throws InterruptedException {
+            Thread.sleep(10_000);
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.Grader;
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.Request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the {@link ShardMerger} and {@link ShardFilter} classes.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class ShardMergerTest {
+
+    private static final Class<?>[] TEST_SUITES = {FirstSuite.class, SecondSuite.class};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void merge_testSameResultsAsOneJvm() throws IOException {
+        File submission = folder.newFolder("submission");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AutoGrader.grade(TEST_SUITES)
+            .onVocareum()
+            .withMaxScore(40)
+            .gradeSubmission(submission, new PrintStream(out), new PrintStream(err));
+
+        List<File> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            File shard = new File(folder.getRoot(), "shard-" + i + ".ndjson");
+            AutoGrader.grade(TEST_SUITES)
+                .onVocareum()
+                .withMaxScore(40)
+                .withShard(i, 3, shard.getPath())
+                .run();
+            shards.add(shard);
+        }
+
+        ByteArrayOutputStream mergedOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream mergedErr = new ByteArrayOutputStream();
+        new VocareumFormatter().printGradingResults(ShardMerger.merge(shards),
+            new PrintStream(mergedOut), new PrintStream(mergedErr));
+
+        Assert.assertEquals(out.toString(), mergedOut.toString());
+        Assert.assertEquals(err.toString(), mergedErr.toString());
+    }
+
+    @Test(timeout = 5000)
+    public void merge_testIgnoredTestsAndFailedSetup() throws IOException {
+        Class<?>[] testSuites = {FirstSuite.class, IgnoringSuite.class, FailingSetupSuite.class};
+        File submission = folder.newFolder("submission");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AutoGrader.grade(testSuites)
+            .onVocareum()
+            .gradeSubmission(submission, new PrintStream(out), new PrintStream(err));
+
+        List<File> shards = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            File shard = new File(folder.getRoot(), "shard-" + i + ".ndjson");
+            AutoGrader.grade(testSuites).onVocareum().withShard(i, 2, shard.getPath()).run();
+            shards.add(shard);
+        }
+
+        ByteArrayOutputStream mergedOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream mergedErr = new ByteArrayOutputStream();
+        new VocareumFormatter().printGradingResults(ShardMerger.merge(shards),
+            new PrintStream(mergedOut), new PrintStream(mergedErr));
+
+        Assert.assertEquals(out.toString(), mergedOut.toString());
+        Assert.assertEquals(err.toString(), mergedErr.toString());
+    }
+
+    @Test(timeout = 5000)
+    public void merge_testCrashedShard() throws IOException {
+        File first = new File(folder.getRoot(), "shard-0.ndjson");
+        AutoGrader.grade(TEST_SUITES).withMaxScore(40).withShard(0, 2, first.getPath()).run();
+
+        // The second shard died after writing the test plan
+        File second = new File(folder.getRoot(), "shard-1.ndjson");
+        AutoGrader.grade(TEST_SUITES).withMaxScore(40).withShard(1, 2, second.getPath()).run();
+        List<String> lines = Files.readAllLines(second.toPath(), StandardCharsets.UTF_8);
+        lines.removeIf(line -> line.contains("\"type\":\"result\""));
+        Files.write(second.toPath(), lines, StandardCharsets.UTF_8);
+
+        Grader grader = ShardMerger.merge(Arrays.asList(first, second));
+        List<GradedTestResult> results = grader.getGradedTestResults();
+
+        Assert.assertEquals(4, results.size());
+        Assert.assertEquals(40, results.stream().mapToDouble(GradedTestResult::getPoints).sum(), 1e-9);
+        Assert.assertEquals(2, results.stream()
+            .filter(r -> r.getOutput().equals(CheckpointRecovery.NOT_FINISHED_MESSAGE))
+            .count());
+    }
+
+    @Test(timeout = 5000)
+    public void shardFilter_testEveryTestInOneShard() {
+        Description plan = Request.classes(TEST_SUITES).getRunner().getDescription();
+        ShardFilter[] filters = {
+            new ShardFilter(plan, 0, 3), new ShardFilter(plan, 1, 3), new ShardFilter(plan, 2, 3)
+        };
+
+        for (Description suite : plan.getChildren()) {
+            for (Description test : suite.getChildren()) {
+                Assert.assertEquals(1, Arrays.stream(filters).filter(f -> f.shouldRun(test)).count());
+            }
+        }
+        Assert.assertEquals("shard 2 of 3", filters[1].describe());
+    }
+
+    public static class FirstSuite {
+
+        @Test
+        @TestCase(name = "First passing", points = 3)
+        public void passing() {
+            System.out.println("first");
+        }
+
+        @Test
+        @TestCase(name = "First failing", points = 2)
+        public void failing() {
+            Assert.fail("expected failure");
+        }
+
+    }
+
+    public static class IgnoringSuite {
+
+        @Test
+        @TestCase(name = "Ignoring passing", points = 5)
+        public void passing() {
+        }
+
+        @Test
+        @Ignore
+        @TestCase(name = "Ignored", points = 5)
+        public void ignored() {
+        }
+
+    }
+
+    public static class FailingSetupSuite {
+
+        @BeforeClass
+        public static void setUp() {
+            throw new IllegalStateException("setup failed");
+        }
+
+        @Test
+        @TestCase(name = "Never run", points = 5)
+        public void neverRun() {
+        }
+
+        @Test
+        @TestCase(name = "Also never run", points = 5)
+        public void alsoNeverRun() {
+        }
+
+    }
+
+    public static class SecondSuite {
+
+        @Test
+        @TestCase(name = "Second passing", points = 4)
+        public void passing() {
+        }
+
+        @Test
+        @TestCase(name = "Second failing", points = 1)
+        public void failing() {
+            Assert.assertEquals(1, 2);
+        }
+
+    }
+
+}
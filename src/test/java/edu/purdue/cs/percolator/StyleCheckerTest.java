@@ -0,0 +1,225 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the {@link StyleChecker} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class StyleCheckerTest {
+
+    private static final String POLICY = "<?xml version=\"1.0\"?>\n" +
+        "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"\n" +
+        "    \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n" +
+        "<module name=\"Checker\">\n" +
+        "  <module name=\"FileTabCharacter\"/>\n" +
+        "  <module name=\"TreeWalker\">\n" +
+        "    <module name=\"ConstantName\"/>\n" +
+        "    <module name=\"NeedBraces\"/>\n" +
+        "  </module>\n" +
+        "</module>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File source;
+
+    private File policy;
+
+    @Before
+    public void createFiles() throws IOException {
+        this.source = folder.newFolder("src");
+        for (int i = 0; i < 10; i++) {
+            String contents = i % 3 == 0
+                ? String.format("public class Clean%d {%n    static final int GOOD = 42;%n}%n", i)
+                : String.format("public class Messy%d {%n\tstatic final int bad = 42;%n" +
+                "    void f() { if (true) return; }%n}%n", i);
+            Files.writeString(new File(this.source, "File" + i + ".java").toPath(), contents);
+        }
+
+        this.policy = folder.newFile("checkstyle.xml");
+        Files.writeString(this.policy.toPath(), POLICY);
+    }
+
+    @Test(timeout = 10000)
+    public void grade_testDeductions() {
+        GradedTestResult result = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(2)
+            .grade();
+
+        // 6 messy files with 3 errors each
+        Assert.assertEquals(100 - 6 * 3 * 2, result.getScore(), 0.0);
+        Assert.assertTrue(result.getOutput().contains("[ConstantName]"));
+    }
+
+    @Test(timeout = 10000)
+    public void grade_testParallelSameAsSerial() {
+        GradedTestResult serial = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .grade();
+        GradedTestResult parallel = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withParallelism(4)
+            .grade();
+
+        Assert.assertEquals(serial.getScore(), parallel.getScore(), 0.0);
+        Assert.assertEquals(serial.getOutput(), parallel.getOutput());
+    }
+
+    @Test(timeout = 10000)
+    public void grade_testParallelWithSkippedFiles() throws IOException {
+        for (int i = 10; i < 100; i++) {
+            Files.writeString(new File(this.source, "File" + i + ".java").toPath(),
+                String.format("public class Messy%d {%n\tstatic final int bad = 42;%n}%n", i));
+        }
+        File filtered = folder.newFile("filtered.xml");
+        Files.writeString(filtered.toPath(), POLICY.replace("<module name=\"Checker\">\n",
+            "<module name=\"Checker\">\n" +
+            "  <module name=\"BeforeExecutionExclusionFileFilter\">\n" +
+            "    <property name=\"fileNamePattern\" value=\"File[0-9]*7\\.java$\"/>\n" +
+            "  </module>\n"));
+
+        GradedTestResult serial = StyleChecker.lint(this.source.getPath(), filtered.getPath())
+            .withMaxScore(1000)
+            .withDeduction(1)
+            .grade();
+        GradedTestResult parallel = StyleChecker.lint(this.source.getPath(), filtered.getPath())
+            .withMaxScore(1000)
+            .withDeduction(1)
+            .withParallelism(3)
+            .grade();
+
+        Assert.assertFalse(serial.getOutput().contains("File17.java"));
+        Assert.assertEquals(serial.getScore(), parallel.getScore(), 0.0);
+        Assert.assertEquals(serial.getOutput(), parallel.getOutput());
+    }
+
+    @Test(timeout = 10000)
+    public void grade_testCachedSameAsUncached() throws IOException {
+        String cache = folder.newFolder("cache").getPath();
+        GradedTestResult uncached = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .grade();
+        GradedTestResult first = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withCache(cache)
+            .grade();
+        GradedTestResult second = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withCache(cache)
+            .withParallelism(4)
+            .grade();
+
+        Assert.assertEquals(10, new File(cache).list().length);
+        Assert.assertEquals(uncached.getScore(), first.getScore(), 0.0);
+        Assert.assertEquals(uncached.getOutput(), first.getOutput());
+        Assert.assertEquals(uncached.getScore(), second.getScore(), 0.0);
+        Assert.assertEquals(uncached.getOutput(), second.getOutput());
+    }
+
+    @Test(timeout = 10000)
+    public void grade_testCacheMissOnChange() throws IOException {
+        String cache = folder.newFolder("cache").getPath();
+        StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withCache(cache)
+            .grade();
+
+        // Fix one of the messy files
+        Files.writeString(new File(this.source, "File1.java").toPath(),
+            String.format("public class Messy1 {%n    static final int GOOD = 42;%n}%n"));
+        GradedTestResult result = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withCache(cache)
+            .grade();
+
+        Assert.assertEquals(100 - 5 * 3, result.getScore(), 0.0);
+        Assert.assertFalse(result.getOutput().contains("File1.java"));
+    }
+
+    @Test(timeout = 10000)
+    public void grade_testWeightedDeductions() {
+        GradedTestResult result = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withDeduction("NeedBraces", 5)
+            .grade();
+
+        // 6 messy files with 2 errors at 1 point and 1 error at 5 points each
+        Assert.assertEquals(100 - 6 * (2 + 5), result.getScore(), 0.0);
+    }
+
+    @Test(timeout = 10000)
+    public void report_testSkippedFilesDoNotHoldUpLaterFiles() {
+        StyleReport report = new StyleReport(OutputStream.nullOutputStream(), 3, 10, 2, Map.of());
+
+        // File 0 is skipped by a filter, so it is never reported
+        report.fileAudited(1, "File1.java", List.of(), List.of());
+        report.fileAudited(2, "File2.java", List.of(), List.of());
+        Assert.assertEquals(2, report.getPendingFiles());
+
+        report.filesAudited(List.of(0, 1, 2));
+        Assert.assertEquals(0, report.getPendingFiles());
+        report.finish();
+    }
+
+    @Test(timeout = 10000)
+    public void report_testExceptionsCountAsErrors() {
+        StyleReport report = new StyleReport(OutputStream.nullOutputStream(), 1, 10, 2, Map.of());
+        StyleAuditRecorder recorder = new StyleAuditRecorder(
+            (fileName, violations, exceptions) -> report.fileAudited(0, fileName, violations, exceptions)
+        );
+        AuditEvent event = new AuditEvent(this, "File0.java");
+
+        recorder.fileStarted(event);
+        recorder.addException(event, new IllegalStateException("first"));
+        recorder.addException(event, new IllegalStateException("second"));
+        recorder.fileFinished(event);
+        report.finish();
+
+        Assert.assertEquals(2 * 2, report.getDeduction(), 0.0);
+    }
+
+    @Test(timeout = 10000)
+    public void grade_testMessageLimit() {
+        GradedTestResult result = StyleChecker.lint(this.source.getPath(), this.policy.getPath())
+            .withMaxScore(100)
+            .withDeduction(1)
+            .withMessageLimit(2)
+            .withParallelism(3)
+            .grade();
+        String output = result.getOutput();
+
+        Assert.assertEquals(100 - 6 * 3, result.getScore(), 0.0);
+        Assert.assertEquals(2, output.split("\\[NeedBraces]", -1).length - 1);
+        Assert.assertTrue(output.contains("(12 not shown)"));
+        Assert.assertTrue(output.contains("    NeedBraces: 6"));
+        Assert.assertTrue(output.contains("    File1.java: 3"));
+    }
+
+}
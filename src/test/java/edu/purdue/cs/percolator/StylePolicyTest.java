@@ -0,0 +1,91 @@
+package edu.purdue.cs.percolator;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Tests the {@link StylePolicy} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class StylePolicyTest {
+
+    private static final String POLICY = "<?xml version=\"1.0\"?>\n" +
+        "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"\n" +
+        "    \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n" +
+        "<module name=\"Checker\">\n" +
+        "  <module name=\"%s\"/>\n" +
+        "</module>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void load_testCached() throws IOException, CheckstyleException {
+        File policyFile = folder.newFile("checkstyle.xml");
+        Files.writeString(policyFile.toPath(), String.format(POLICY, "FileTabCharacter"));
+
+        StylePolicy policy = StylePolicy.load(policyFile.getPath());
+        Assert.assertSame(policy, StylePolicy.load(policyFile.getAbsolutePath()));
+    }
+
+    @Test(timeout = 5000)
+    public void load_testReloadedWhenModified() throws IOException, CheckstyleException {
+        File policyFile = folder.newFile("checkstyle.xml");
+        Files.writeString(policyFile.toPath(), String.format(POLICY, "FileTabCharacter"));
+        StylePolicy first = StylePolicy.load(policyFile.getPath());
+
+        Files.writeString(policyFile.toPath(), String.format(POLICY, "NewlineAtEndOfFile"));
+        Files.setLastModifiedTime(policyFile.toPath(),
+            FileTime.fromMillis(Files.getLastModifiedTime(policyFile.toPath()).toMillis() + 1000));
+        StylePolicy second = StylePolicy.load(policyFile.getPath());
+
+        Assert.assertNotSame(first, second);
+        Assert.assertNotEquals(first.getHash(), second.getHash());
+    }
+
+    @Test(timeout = 5000)
+    public void load_testReplacedCheckersDestroyed() throws IOException, CheckstyleException {
+        File policyFile = folder.newFile("checkstyle.xml");
+        Files.writeString(policyFile.toPath(), String.format(POLICY, "FileTabCharacter"));
+        StylePolicy first = StylePolicy.load(policyFile.getPath());
+        Checker pooled = first.borrow();
+        Checker inUse = first.borrow();
+        first.release(pooled);
+
+        Files.setLastModifiedTime(policyFile.toPath(),
+            FileTime.fromMillis(Files.getLastModifiedTime(policyFile.toPath()).toMillis() + 1000));
+        Assert.assertNotSame(first, StylePolicy.load(policyFile.getPath()));
+
+        // Neither checker goes back into the pool of the old policy
+        first.release(inUse);
+        Checker borrowed = first.borrow();
+        Assert.assertNotSame(pooled, borrowed);
+        Assert.assertNotSame(inUse, borrowed);
+    }
+
+    @Test(timeout = 5000)
+    public void borrow_testReused() throws IOException, CheckstyleException {
+        File policyFile = folder.newFile("checkstyle.xml");
+        Files.writeString(policyFile.toPath(), String.format(POLICY, "FileTabCharacter"));
+        StylePolicy policy = StylePolicy.load(policyFile.getPath());
+
+        Checker checker = policy.borrow();
+        Assert.assertNotSame(checker, policy.borrow());
+        policy.release(checker);
+        Assert.assertSame(checker, policy.borrow());
+    }
+
+}
@@ -0,0 +1,110 @@
+package edu.purdue.cs.percolator;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Tests the {@link SubmissionClassLoader} class and batch grading with the {@link AutoGrader}.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class SubmissionClassLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 1000)
+    public void loadTestSuites_testFreshCopies() throws IOException, ClassNotFoundException {
+        Class<?>[] testSuites = {StatefulSuite.class};
+        File submission = folder.newFolder("submission");
+
+        try (SubmissionClassLoader first = new SubmissionClassLoader(submission, testSuites);
+             SubmissionClassLoader second = new SubmissionClassLoader(submission, testSuites)) {
+            Class<?> firstSuite = first.loadTestSuites(testSuites)[0];
+            Class<?> secondSuite = second.loadTestSuites(testSuites)[0];
+
+            Assert.assertNotSame(StatefulSuite.class, firstSuite);
+            Assert.assertNotSame(firstSuite, secondSuite);
+            Assert.assertSame(TestCase.class, first.loadClass(TestCase.class.getName()));
+            Assert.assertSame(Test.class, first.loadClass(Test.class.getName()));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void runBatch_testNoSharedState() throws IOException {
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        File output = folder.newFolder("output");
+
+        AutoGrader.grade(new Class<?>[]{StatefulSuite.class})
+            .onVocareum()
+            .runBatch(Arrays.asList(first.getPath(), second.getPath()), output.getPath());
+
+        for (String name : new String[]{"first", "second"}) {
+            String results = Files.readString(new File(output, name + ".out").toPath());
+            Assert.assertTrue(results.startsWith("Test Cases,100.0"));
+            Assert.assertTrue(new File(output, name + ".err").exists());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void runBatch_testFailedSubmission() throws IOException {
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        File output = folder.newFolder("output");
+        // The results of the first submission cannot be written
+        Assert.assertTrue(new File(output, "first.out").mkdir());
+
+        AutoGrader.grade(new Class<?>[]{StatefulSuite.class})
+            .onVocareum()
+            .runBatch(Arrays.asList(first.getPath(), second.getPath()), output.getPath());
+
+        String failure = Files.readString(new File(output, "first.failed").toPath());
+        Assert.assertTrue(failure.contains("first.out"));
+        String results = Files.readString(new File(output, "second.out").toPath());
+        Assert.assertTrue(results.startsWith("Test Cases,100.0"));
+        Assert.assertFalse(new File(output, "second.failed").exists());
+    }
+
+    @Test(timeout = 1000)
+    public void runBatch_testDuplicateNames() throws IOException {
+        File first = folder.newFolder("first", "submission");
+        File second = folder.newFolder("second", "submission");
+        File output = folder.newFolder("output");
+
+        try {
+            AutoGrader.grade(new Class<?>[]{StatefulSuite.class})
+                .onVocareum()
+                .runBatch(Arrays.asList(first.getPath(), second.getPath()), output.getPath());
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("same name: submission"));
+            Assert.assertEquals(0, output.list().length);
+            return;
+        }
+
+        Assert.fail("runBatch did not throw IllegalArgumentException.");
+    }
+
+    public static class StatefulSuite {
+
+        private static int runs = 0;
+
+        @Test
+        @TestCase(name = "First run")
+        public void firstRun() {
+            runs++;
+            Assert.assertEquals(1, runs);
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the {@link SubmissionCompiler} class and in-memory compilation with the {@link AutoGrader}.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class SubmissionCompilerTest {
+
+    private static final String GREETER = "public class Greeter {\n" +
+        "    public static String greet() {\n" +
+        "        return \"hello\";\n" +
+        "    }\n" +
+        "}\n";
+
+    private static final String BROKEN_GREETER = "public class Greeter {\n" +
+        "    public static String greet() {\n" +
+        "        return 42;\n" +
+        "    }\n" +
+        "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void compile_testInMemory() throws IOException {
+        File submission = submission("working", GREETER);
+
+        SubmissionCompiler.Result result = new SubmissionCompiler().compile(submission);
+
+        Assert.assertNull(result.getFailure());
+        Assert.assertTrue(result.getClasses().containsKey("Greeter"));
+        Assert.assertFalse(new File(submission, "Greeter.class").exists());
+    }
+
+    @Test(timeout = 10000)
+    public void compile_testCompileErrors() throws IOException {
+        File submission = submission("broken", BROKEN_GREETER);
+
+        SubmissionCompiler.Result result = new SubmissionCompiler().compile(submission);
+        GradedTestResult failure = result.getFailure();
+
+        Assert.assertTrue(result.getClasses().isEmpty());
+        Assert.assertEquals(SubmissionCompiler.RESULT_NAME, failure.getName());
+        Assert.assertEquals(0, failure.getPoints(), 0.0);
+        Assert.assertFalse(failure.passed());
+        Assert.assertTrue(failure.getOutput().startsWith("Greeter.java:3: error: "));
+    }
+
+    @Test(timeout = 10000)
+    public void runBatch_testCompilesEachSubmission() throws IOException {
+        File working = submission("working", GREETER);
+        File broken = submission("broken", BROKEN_GREETER);
+        File output = folder.newFolder("output");
+
+        AutoGrader.grade(new Class<?>[]{GreeterSuite.class})
+            .onVocareum()
+            .withInMemoryCompilation(true)
+            .runBatch(Arrays.asList(working.getPath(), broken.getPath()), output.getPath());
+
+        String workingResults = Files.readString(new File(output, "working.out").toPath());
+        Assert.assertTrue(workingResults.startsWith("Test Cases,100.0"));
+        Assert.assertFalse(Files.readString(new File(output, "working.err").toPath()).contains("Compilation"));
+
+        String brokenResults = Files.readString(new File(output, "broken.out").toPath());
+        String brokenReport = Files.readString(new File(output, "broken.err").toPath());
+        Assert.assertTrue(brokenResults.startsWith("Test Cases,0.0"));
+        Assert.assertTrue(brokenReport.contains("Compilation"));
+        Assert.assertTrue(brokenReport.contains("Greeter.java:3: error: "));
+    }
+
+    @Test(timeout = 10000)
+    public void runBatch_testIgnoresStaleClassFiles() throws IOException {
+        File stale = submission("stale", GREETER);
+        File output = folder.newFolder("output");
+        ToolProvider.getSystemJavaCompiler().run(null, null, null,
+            new File(stale, "Greeter.java").getPath());
+        Assert.assertTrue(new File(stale, "Greeter.class").exists());
+        Files.writeString(new File(stale, "Greeter.java").toPath(), BROKEN_GREETER);
+
+        AutoGrader.grade(new Class<?>[]{GreeterSuite.class})
+            .onVocareum()
+            .withInMemoryCompilation(true)
+            .runBatch(Collections.singletonList(stale.getPath()), output.getPath());
+
+        String results = Files.readString(new File(output, "stale.out").toPath());
+        String report = Files.readString(new File(output, "stale.err").toPath());
+        Assert.assertTrue(results.startsWith("Test Cases,0.0"));
+        Assert.assertTrue(report.contains(SubmissionCompiler.NOT_RUN_MESSAGE));
+    }
+
+    @Test(timeout = 10000)
+    public void runBatch_testCompileErrorsNotMeasured() throws IOException {
+        File broken = submission("broken", BROKEN_GREETER);
+        File output = folder.newFolder("output");
+        File history = folder.newFile("durations.tsv");
+        String durations = "500000000\t" + Description.createTestDescription(GreeterSuite.class, "greets")
+            .getDisplayName() + "\n";
+        Files.writeString(history.toPath(), durations);
+
+        AutoGrader grader = AutoGrader.grade(new Class<?>[]{GreeterSuite.class})
+            .onVocareum()
+            .withInMemoryCompilation(true)
+            .withDurationHistory(history.getPath())
+            .withMetricsFile("metrics.json");
+        for (int i = 0; i < 3; i++) {
+            grader.runBatch(Collections.singletonList(broken.getPath()), output.getPath());
+        }
+
+        Assert.assertEquals(durations, Files.readString(history.toPath()));
+        JSONObject metrics = new JSONObject(Files.readString(new File(output, "broken.metrics.json").toPath()));
+        Assert.assertEquals(0, metrics.getJSONArray("tests").length());
+    }
+
+    private File submission(String name, String greeter) throws IOException {
+        File submission = folder.newFolder(name);
+        Files.writeString(new File(submission, "Greeter.java").toPath(), greeter);
+        return submission;
+    }
+
+    public static class GreeterSuite {
+
+        @Test
+        @TestCase(name = "Greets")
+        public void greets() throws ReflectiveOperationException {
+            Class<?> greeter = Class.forName("Greeter");
+            Assert.assertEquals("hello", greeter.getMethod("greet").invoke(null));
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package edu.purdue.cs.percolator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+
+/**
+ * Tests the {@link TestMetrics} class and the metrics file written by the {@link AutoGrader}.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class TestMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void gradeSubmission_testMetricsFile() throws IOException {
+        JSONArray tests = grade(0).getJSONArray("tests");
+
+        Assert.assertEquals(4, tests.length());
+        checkMetrics(tests);
+    }
+
+    @Test(timeout = 10000)
+    public void gradeSubmission_testMetricsFileWithWatchdog() throws IOException {
+        checkMetrics(grade(5000).getJSONArray("tests"));
+    }
+
+    @Test(timeout = 1000)
+    public void add_testUnmeasured() {
+        TestMetrics metrics = new TestMetrics("test", null);
+        metrics.add(-1, 100, -1, 100);
+        metrics.finish();
+
+        Assert.assertTrue(metrics.getWallNanos() >= 0);
+        Assert.assertTrue(metrics.getCpuNanos() < 1_000_000_000L);
+        Assert.assertTrue(metrics.getAllocatedBytes() < 1_000_000_000L);
+    }
+
+    private JSONObject grade(long timeoutMillis) throws IOException {
+        File submission = folder.newFolder();
+        File metrics = new File(folder.getRoot(), submission.getName() + ".metrics.json");
+        PrintStream discard = new PrintStream(new ByteArrayOutputStream());
+
+        AutoGrader.grade(new Class<?>[]{MeasuredSuite.class})
+            .onVocareum()
+            .withTimeout(timeoutMillis)
+            .gradeSubmission(submission, discard, discard, metrics, null);
+        return new JSONObject(Files.readString(metrics.toPath()));
+    }
+
+    private static void checkMetrics(JSONArray tests) {
+        for (int i = 0; i < tests.length(); i++) {
+            JSONObject test = tests.getJSONObject(i);
+            String name = test.getString("test");
+            Assert.assertEquals(name.startsWith("prints"), test.optBoolean("output_truncated"));
+            if (name.startsWith("prints")) {
+                Assert.assertEquals("Prints", test.getString("name"));
+            } else if (name.startsWith("allocates")) {
+                Assert.assertEquals("Allocates", test.getString("name"));
+                Assert.assertTrue(test.getLong("allocated_bytes") >= 64L * 1024 * 1024);
+            } else if (name.startsWith("sleeps")) {
+                Assert.assertEquals("Sleeps", test.getString("name"));
+                Assert.assertTrue(test.getLong("wall_time_ns") >= 200_000_000L);
+                Assert.assertTrue(test.getLong("cpu_time_ns") < 150_000_000L);
+            } else {
+                Assert.assertFalse(test.has("name"));
+                Assert.assertTrue(test.getLong("cpu_time_ns") >= 100_000_000L);
+            }
+        }
+    }
+
+    public static class MeasuredSuite {
+
+        public static volatile Object sink;
+
+        @Test
+        @TestCase(name = "Allocates")
+        public void allocates() {
+            for (int i = 0; i < 64; i++) {
+                sink = new byte[1024 * 1024];
+            }
+        }
+
+        @Test
+        @TestCase(name = "Sleeps")
+        public void sleeps() throws InterruptedException {
+            Thread.sleep(200);
+        }
+
+        @Test
+        @TestCase(name = "Prints", outputLimit = 64)
+        public void prints() {
+            for (int i = 0; i < 100; i++) {
+                System.out.println("line " + i);
+            }
+        }
+
+        @Test
+        public void spins() {
+            // Spin on CPU time rather than wall time, so a busy machine cannot make the test flaky
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long end = threads.getCurrentThreadCpuTime() + 150_000_000L;
+            while (threads.getCurrentThreadCpuTime() < end) {
+                sink = null;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,248 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the {@link TestScheduler} and {@link DurationHistory} classes.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class TestSchedulerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void run_testPointsPerSecondOrder() throws IOException {
+        Path historyFile = writeHistory(
+            "1000000000\t" + testName(OrderedSuite.class, "cheap"),
+            "1000000000\t" + testName(OrderedSuite.class, "valuable"),
+            "100000000\t" + testName(OrderedSuite.class, "quick")
+        );
+        OrderedSuite.started.clear();
+
+        List<GradedTestResult> results = runTestSuite(new TestScheduler(new DurationHistory(historyFile), 0),
+            OrderedSuite.class);
+
+        Assert.assertEquals(Arrays.asList("quick", "valuable", "cheap"), OrderedSuite.started);
+
+        // The results are still reported in the usual order
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        runner.run(new GradingComputer(0, 0), OrderedSuite.class);
+        Assert.assertEquals(names(listener.getTestResults()), names(results));
+    }
+
+    @Test(timeout = 5000)
+    public void run_testFixedMethodOrder() throws IOException {
+        Path historyFile = writeHistory(
+            "1000000000\t" + testName(FixedOrderSuite.class, "a"),
+            "100000000\t" + testName(FixedOrderSuite.class, "b"),
+            "10000000\t" + testName(FixedOrderSuite.class, "c")
+        );
+        FixedOrderSuite.started.clear();
+
+        runTestSuite(new TestScheduler(new DurationHistory(historyFile), 0), FixedOrderSuite.class);
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), FixedOrderSuite.started);
+    }
+
+    @Test(timeout = 5000)
+    public void run_testBudgetRunsOut() {
+        List<GradedTestResult> results = runTestSuite(new TestScheduler(null, 200), BudgetSuite.class);
+
+        GradedTestResult looping = findResult(results, "Looping");
+        Assert.assertEquals(0, looping.getScore(), 0.0);
+        Assert.assertTrue(looping.getOutput().contains("timed out"));
+
+        GradedTestResult skipped = findResult(results, "Skipped");
+        Assert.assertEquals(0, skipped.getScore(), 0.0);
+        Assert.assertFalse(skipped.passed());
+        Assert.assertTrue(skipped.getOutput().contains(TestScheduler.NOT_RUN_MESSAGE));
+    }
+
+    @Test(timeout = 5000)
+    public void run_testExpectedDurationOverBudget() throws IOException {
+        Path historyFile = writeHistory("60000000000\t" + testName(OrderedSuite.class, "valuable"));
+        TestScheduler scheduler = new TestScheduler(new DurationHistory(historyFile), 1000);
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        runner.run(new GradingComputer(0, 0, scheduler), OrderedSuite.class);
+
+        GradedTestResult valuable = findResult(listener.getTestResults(), "Valuable");
+        Assert.assertEquals(0, valuable.getScore(), 0.0);
+        Assert.assertTrue(valuable.getOutput().contains(TestScheduler.NOT_RUN_MESSAGE));
+        Assert.assertTrue(findResult(listener.getTestResults(), "Cheap").passed());
+        Assert.assertTrue(findResult(listener.getTestResults(), "Quick").passed());
+
+        // Tests that were not run keep their expected duration
+        scheduler.recordDurations(listener.getTestMetrics());
+        DurationHistory history = new DurationHistory(historyFile);
+        Assert.assertEquals(60_000_000_000L, history.expectedNanos(testName(OrderedSuite.class, "valuable")));
+        Assert.assertTrue(history.expectedNanos(testName(OrderedSuite.class, "cheap")) >= 0);
+    }
+
+    @Test(timeout = 5000)
+    public void recordDurations_testStoppedByBudget() throws IOException {
+        String looping = testName(BudgetSuite.class, "looping");
+        Path historyFile = writeHistory("150000000\t" + looping);
+        TestScheduler scheduler = new TestScheduler(new DurationHistory(historyFile), 300);
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        scheduler.start();
+        runner.run(new GradingComputer(0, 0, scheduler), BudgetSuite.class);
+
+        // The looping test was stopped at the end of the budget, so it takes at least that long
+        scheduler.recordDurations(listener.getTestMetrics());
+        long expected = new DurationHistory(historyFile).expectedNanos(looping);
+        Assert.assertTrue(expected >= 250_000_000L);
+    }
+
+    @Test(timeout = 5000)
+    public void durationHistory_testAveragesMeasurements() throws IOException {
+        Path historyFile = writeHistory("100\tfirst(Suite)", "not a duration");
+        DurationHistory history = new DurationHistory(historyFile);
+        Assert.assertEquals(100, history.expectedNanos("first(Suite)"));
+        Assert.assertEquals(-1, history.expectedNanos("second(Suite)"));
+
+        history.record("first(Suite)", 300);
+        history.record("second(Suite)", 600);
+        history.save();
+
+        DurationHistory saved = new DurationHistory(historyFile);
+        Assert.assertEquals(200, saved.expectedNanos("first(Suite)"));
+        Assert.assertEquals(400, saved.averageNanos());
+
+        saved.recordAtLeast("first(Suite)", 100);
+        saved.recordAtLeast("second(Suite)", 1000);
+        Assert.assertEquals(200, saved.expectedNanos("first(Suite)"));
+        Assert.assertEquals(1000, saved.expectedNanos("second(Suite)"));
+    }
+
+    @Test(timeout = 5000)
+    public void durationHistory_testUnreadableFile() throws IOException {
+        DurationHistory history = new DurationHistory(writeHistory("soon\tfirst(Suite)"));
+        Assert.assertEquals(-1, history.expectedNanos("first(Suite)"));
+        Assert.assertEquals(-1, history.averageNanos());
+    }
+
+    private Path writeHistory(String... lines) throws IOException {
+        Path historyFile = folder.getRoot().toPath().resolve("durations.tsv");
+        Files.write(historyFile, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return historyFile;
+    }
+
+    private static String testName(Class<?> testSuite, String method) {
+        return Description.createTestDescription(testSuite, method).getDisplayName();
+    }
+
+    private static List<GradedTestResult> runTestSuite(TestScheduler scheduler, Class<?> testSuite) {
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        scheduler.start();
+        runner.run(new GradingComputer(0, 0, scheduler), testSuite);
+        return listener.getTestResults();
+    }
+
+    private static List<String> names(List<GradedTestResult> results) {
+        return results.stream().map(GradedTestResult::getName).collect(Collectors.toList());
+    }
+
+    private static GradedTestResult findResult(List<GradedTestResult> results, String name) {
+        return results.stream()
+            .filter(r -> r.getName().equals(name))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+    }
+
+    public static class OrderedSuite {
+
+        public static final List<String> started = new CopyOnWriteArrayList<>();
+
+        @Test
+        @TestCase(name = "Cheap", points = 1)
+        public void cheap() {
+            started.add("cheap");
+        }
+
+        @Test
+        @TestCase(name = "Valuable", points = 10)
+        public void valuable() {
+            started.add("valuable");
+        }
+
+        @Test
+        @TestCase(name = "Quick", points = 5)
+        public void quick() {
+            started.add("quick");
+        }
+
+    }
+
+    @FixMethodOrder(MethodSorters.NAME_ASCENDING)
+    public static class FixedOrderSuite {
+
+        public static final List<String> started = new CopyOnWriteArrayList<>();
+
+        @Test
+        @TestCase(name = "A", points = 1)
+        public void a() {
+            started.add("a");
+        }
+
+        @Test
+        @TestCase(name = "B", points = 1)
+        public void b() {
+            started.add("b");
+        }
+
+        @Test
+        @TestCase(name = "C", points = 1)
+        public void c() {
+            started.add("c");
+        }
+
+    }
+
+    public static class BudgetSuite {
+
+        @Test
+        @TestCase(name = "Looping", points = 10)
+        @SuppressWarnings("StatementWithEmptyBody")
+        public void looping() {
+            while (true) {
+            }
+        }
+
+        @Test
+        @TestCase(name = "Skipped", points = 1)
+        public void skipped() {
+        }
+
+    }
+
+}
@@ -4,15 +4,17 @@ import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.runner.JUnitCore;
 
 import java.lang.reflect.Field;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Tests the {@link TestCaseListener} class.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.0
+ * @version 1.3
  * @since 1.0
  */
 public class TestSuiteListenerTest {
@@ -85,4 +87,52 @@ public class TestSuiteListenerTest {
         Assert.assertEquals(maxScore, total, 0.0);
     }
 
+    @Test(timeout = 5000)
+    public void testFinished_testConcurrentOutput() {
+        TestCaseListener listener = new TestCaseListener(100);
+        JUnitCore runner = new JUnitCore();
+        runner.addListener(listener);
+        runner.run(new BoundedParallelComputer(2, true, 0, 0), PrintingSuite.class);
+
+        List<GradedTestResult> results = listener.getTestResults();
+        Assert.assertEquals(2, results.size());
+        for (GradedTestResult result : results) {
+            String expected = result.getName().equals("First") ? "first" : "second";
+            String unexpected = result.getName().equals("First") ? "second" : "first";
+            Assert.assertTrue(result.getOutput().contains(expected + " main"));
+            Assert.assertTrue(result.getOutput().contains(expected + " child"));
+            Assert.assertFalse(result.getOutput().contains(unexpected));
+        }
+    }
+
+    public static class PrintingSuite {
+
+        @Test
+        @TestCase(name = "First")
+        public void first() throws InterruptedException {
+            print("first");
+        }
+
+        @Test
+        @TestCase(name = "Second")
+        public void second() throws InterruptedException {
+            print("second");
+        }
+
+        private static void print(String marker) throws InterruptedException {
+            Thread child = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    System.out.println(marker + " child");
+                }
+            });
+            child.start();
+            for (int i = 0; i < 100; i++) {
+                System.out.println(marker + " main");
+                Thread.sleep(1);
+            }
+            child.join();
+        }
+
+    }
+
 }
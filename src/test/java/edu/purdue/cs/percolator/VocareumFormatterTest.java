@@ -0,0 +1,92 @@
+package edu.purdue.cs.percolator;
+
+import com.github.tkutcher.jgrade.Grader;
+import com.github.tkutcher.jgrade.gradedtest.GradedTestResult;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests the {@link VocareumFormatter} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class VocareumFormatterTest {
+
+    private static final String N = System.lineSeparator();
+
+    @Test(timeout = 1000)
+    public void printGradingResults_testReport() {
+        Grader grader = new Grader();
+        grader.addGradedTestResult(createResult("First", "1", 10, 10, ""));
+        grader.addGradedTestResult(createResult("Second", "", 20, 0, "Expected 1 but was 2"));
+        grader.addGradedTestResult(createResult("Third", "3", 30, 30, ""));
+        grader.addGradedTestResult(createResult("Fourth", "4", 40, 0, "Unicode output: é中"));
+        grader.addGradedTestResult(createResult(StyleChecker.TEST_RESULT_NAME, "", 5, 3, "Starting audit..." + N + "Audit done." + N));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        new VocareumFormatter().printGradingResults(grader, new PrintStream(out), new PrintStream(err));
+
+        String report = "TEST CASES\n==========" + N +
+            "1) PASSED: First\n" +
+            "3) PASSED: Third\n" +
+            "\n" +
+            "FAILED: Second\n" +
+            "Expected 1 but was 2" + N +
+            "4) FAILED: Fourth\n" +
+            "Unicode output: é中" + N +
+            "2 TESTS FAILED.\n" +
+            "\n\nCODE STYLE\n==========" + N +
+            "Starting audit..." + N + "Audit done." + N + N;
+        String results = "Test Cases,40.0" + N + "Code Style,3.0" + N;
+        Assert.assertArrayEquals(report.getBytes(), err.toByteArray());
+        Assert.assertArrayEquals(results.getBytes(StandardCharsets.US_ASCII), out.toByteArray());
+    }
+
+    @Test(timeout = 1000)
+    public void printGradingResults_testAllPass() {
+        Grader grader = new Grader();
+        grader.addGradedTestResult(createResult("Only", "", 100, 100, ""));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        new VocareumFormatter().printGradingResults(grader, new PrintStream(out), new PrintStream(err));
+
+        String report = "TEST CASES\n==========" + N +
+            "PASSED: Only\n" +
+            "\n" +
+            "ALL TESTS PASS!" + N;
+        Assert.assertArrayEquals(report.getBytes(), err.toByteArray());
+        Assert.assertArrayEquals(("Test Cases,100.0" + N).getBytes(), out.toByteArray());
+    }
+
+    @Test(timeout = 1000)
+    public void printGradingResults_testScoreSum() {
+        Grader grader = new Grader();
+        for (int i = 0; i < 10; i++) {
+            grader.addGradedTestResult(createResult("Test " + i, "", 0.1, 0.1, ""));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VocareumFormatter().printGradingResults(grader, new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+        Assert.assertArrayEquals(("Test Cases,1.0" + N).getBytes(), out.toByteArray());
+    }
+
+    private static GradedTestResult createResult(String name, String number, double points, double score,
+                                                 String output) {
+        GradedTestResult result = new GradedTestResult(name, number, points, GradedTestResult.VISIBLE);
+        result.setScore(score);
+        result.setPassed(score == points);
+        result.addOutput(output);
+        return result;
+    }
+
+}
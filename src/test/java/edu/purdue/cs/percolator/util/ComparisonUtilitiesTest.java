@@ -0,0 +1,120 @@
+package edu.purdue.cs.percolator.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Tests the {@link ComparisonUtilities} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class ComparisonUtilitiesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 1000)
+    public void contentEquals_testModes() {
+        Assert.assertTrue(contentEquals("a\nb", "a\nb", ComparisonUtilities.Mode.EXACT));
+        Assert.assertFalse(contentEquals("a\nb", "a\r\nb", ComparisonUtilities.Mode.EXACT));
+        Assert.assertFalse(contentEquals("a\nb", "a\nb\n", ComparisonUtilities.Mode.EXACT));
+        Assert.assertTrue(contentEquals("a\nb\n", "a\r\nb\r\n", ComparisonUtilities.Mode.IGNORE_LINE_ENDINGS));
+        Assert.assertFalse(contentEquals("a\nb", "a\rb", ComparisonUtilities.Mode.IGNORE_LINE_ENDINGS));
+        Assert.assertTrue(contentEquals("a b\tc\n", " abc", ComparisonUtilities.Mode.IGNORE_WHITESPACE));
+        Assert.assertFalse(contentEquals("a b c", "A B C", ComparisonUtilities.Mode.IGNORE_WHITESPACE));
+        Assert.assertTrue(contentEquals("HeLlO\tWoRlD!!\n", "helloworld!!", ComparisonUtilities.Mode.FUZZY));
+        Assert.assertFalse(contentEquals("helloworld!!", "hello world", ComparisonUtilities.Mode.FUZZY));
+    }
+
+    @Test(timeout = 1000)
+    public void assertContentEquals_testFailurePosition() {
+        try {
+            ComparisonUtilities.assertContentEquals("Output differs.",
+                new StringReader("first\nsecond\n"), new StringReader("first\nsecund\n"), ComparisonUtilities.Mode.EXACT);
+        } catch (AssertionError e) {
+            Assert.assertEquals("Output differs. first difference is at line 2, column 4 of expected and " +
+                "line 2, column 4 of actual: expected 'o' but was 'u'", e.getMessage());
+            return;
+        }
+
+        Assert.fail("assertContentEquals did not throw AssertionError.");
+    }
+
+    @Test(timeout = 5000)
+    public void assertContentEquals_testMappedFile() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            expected.append("Line ").append(i).append('\n');
+        }
+        File file = folder.newFile("expected.txt");
+        Files.writeString(file.toPath(), expected);
+
+        String actual = expected.toString().replace("\n", "\r\n");
+        ComparisonUtilities.assertContentEquals(null, file.toPath(),
+            new ByteArrayInputStream(actual.getBytes(StandardCharsets.UTF_8)), ComparisonUtilities.Mode.IGNORE_LINE_ENDINGS);
+
+        try {
+            ComparisonUtilities.assertContentEquals(null, file.toPath(),
+                new ByteArrayInputStream(actual.getBytes(StandardCharsets.UTF_8)), ComparisonUtilities.Mode.EXACT);
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage().contains("expected '\\n' but was '\\r'"));
+            return;
+        }
+
+        Assert.fail("assertContentEquals did not throw AssertionError.");
+    }
+
+    @Test(timeout = 1000)
+    public void assertContentEquals_testEmptyFile() throws IOException {
+        File file = folder.newFile("empty.txt");
+
+        ComparisonUtilities.assertContentEquals(null, file.toPath(),
+            new ByteArrayInputStream(new byte[0]), ComparisonUtilities.Mode.EXACT);
+    }
+
+    @Test(timeout = 1000)
+    public void assertNumericEquals_testTolerance() {
+        ComparisonUtilities.assertNumericEquals(null,
+            new StringReader("Area: 3.14159\nCount: 2"), new StringReader("Area:   3.1416 Count: 2.0"), 0.001);
+
+        try {
+            ComparisonUtilities.assertNumericEquals(null,
+                new StringReader("Area: 3.14159\nCount: 2"), new StringReader("Area: 3.2\nCount: 2"), 0.001);
+        } catch (AssertionError e) {
+            Assert.assertEquals("first difference is at line 1, column 7 of expected and line 1, column 7 of actual: " +
+                "expected \"3.14159\" but was \"3.2\"", e.getMessage());
+            return;
+        }
+
+        Assert.fail("assertNumericEquals did not throw AssertionError.");
+    }
+
+    @Test(timeout = 1000)
+    public void assertNumericEquals_testWords() {
+        try {
+            ComparisonUtilities.assertNumericEquals(null,
+                new StringReader("Total: 5"), new StringReader("total: 5"), 0.1);
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage().endsWith("expected \"Total:\" but was \"total:\""));
+            return;
+        }
+
+        Assert.fail("assertNumericEquals did not throw AssertionError.");
+    }
+
+    private static boolean contentEquals(String expected, String actual, ComparisonUtilities.Mode mode) {
+        return ComparisonUtilities.contentEquals(new StringReader(expected), new StringReader(actual), mode);
+    }
+
+}
@@ -0,0 +1,78 @@
+package edu.purdue.cs.percolator.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link DiffUtilities} class.
+ *
+ * @author Andrew Davis, asd@alumni.purdue.edu
+ * @version 1.3
+ * @since 1.3
+ */
+public class DiffUtilitiesTest {
+
+    private static final String N = System.lineSeparator();
+
+    @Test(timeout = 1000)
+    public void diff_testSame() {
+        Assert.assertEquals("", DiffUtilities.diff("a\nb\nc\n", "a\r\nb\r\nc"));
+        Assert.assertEquals("", DiffUtilities.diff("", ""));
+    }
+
+    @Test(timeout = 1000)
+    public void diff_testHunks() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            expected.append(i).append('\n');
+        }
+        String actual = expected.toString()
+            .replace("\n3\n", "\nthree\n")
+            .replace("\n5\n", "\n")
+            .replace("\n18\n", "\n18\n18.5\n");
+
+        String diff = DiffUtilities.diff(expected.toString(), actual);
+
+        Assert.assertEquals("--- expected" + N + "+++ actual" + N +
+            "@@ -1,8 +1,7 @@" + N +
+            " 1" + N + " 2" + N + "-3" + N + "+three" + N + " 4" + N + "-5" + N + " 6" + N + " 7" + N + " 8" + N +
+            "@@ -16,5 +15,6 @@" + N +
+            " 16" + N + " 17" + N + " 18" + N + "+18.5" + N + " 19" + N + " 20" + N, diff);
+    }
+
+    @Test(timeout = 1000)
+    public void diff_testInsertIntoEmpty() {
+        Assert.assertEquals("--- expected" + N + "+++ actual" + N + "@@ -0,0 +1,1 @@" + N + "+new" + N,
+            DiffUtilities.diff("", "new"));
+    }
+
+    @Test(timeout = 5000)
+    public void diff_testBounded() {
+        StringBuilder expected = new StringBuilder();
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            expected.append("expected ").append(i).append('\n');
+            actual.append("actual ").append(i).append('\n');
+        }
+
+        String diff = DiffUtilities.diff(expected.toString(), actual.toString());
+
+        Assert.assertTrue(diff.contains("@@ -1,100000 +1,100000 @@"));
+        Assert.assertTrue(diff.endsWith("... (diff truncated)" + N));
+        Assert.assertTrue(diff.split(N).length < 110);
+    }
+
+    @Test(timeout = 1000)
+    public void assertLinesEqual_testFailure() {
+        try {
+            DiffUtilities.assertLinesEqual("Output differs.", "Hello\nWorld\n", "Hello\nword\n");
+        } catch (AssertionError e) {
+            Assert.assertEquals("Output differs. lines differ:" + N + "--- expected" + N + "+++ actual" + N +
+                "@@ -1,2 +1,2 @@" + N + " Hello" + N + "-World" + N + "+word" + N, e.getMessage());
+            return;
+        }
+
+        Assert.fail("assertLinesEqual did not throw AssertionError.");
+    }
+
+}
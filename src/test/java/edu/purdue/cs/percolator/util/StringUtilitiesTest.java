@@ -7,7 +7,7 @@ import org.junit.Test;
  * Tests the {@link StringUtilities} class.
  *
  * @author Andrew Davis, asd@alumni.purdue.edu
- * @version 1.0
+ * @version 1.3
  * @since 1.0
  */
 public class StringUtilitiesTest {
@@ -50,6 +50,28 @@ public class StringUtilitiesTest {
         Assert.fail("assertFuzzyEquals did not throw AssertionError.");
     }
 
+    @Test(timeout = 1000)
+    public void fuzzyEquals_testLengths() {
+        Assert.assertTrue(StringUtilities.fuzzyEquals("", " \t\n"));
+        Assert.assertFalse(StringUtilities.fuzzyEquals("Hello", "Hello!"));
+        Assert.assertFalse(StringUtilities.fuzzyEquals("Hello!", "Hello"));
+        Assert.assertTrue(StringUtilities.fuzzyEquals("\uD835\uDC00 Ünïcödé", "\uD835\uDC00ünïCÖDÉ"));
+    }
+
+    @Test(timeout = 1000)
+    public void assertFuzzyEquals_testFailureContext() {
+        try {
+            StringUtilities.assertFuzzyEquals("Hello World\nBye", "hello   world\nbyte");
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage().contains("index 14 of expected and index 16 of actual"));
+            Assert.assertTrue(e.getMessage().contains("expected: Hello World\\nBy[e]"));
+            Assert.assertTrue(e.getMessage().contains("actual:   hello   world\\nby[t]e"));
+            return;
+        }
+
+        Assert.fail("assertFuzzyEquals did not throw AssertionError.");
+    }
+
     @Test(timeout = 1000)
     public void normalizeLineEndings_test() {
         final String input = "Hello\r\nWorld";